@@ -0,0 +1,260 @@
+package benchmark;
+
+import controller.GameController;
+import controller.SaveSlots;
+import controller.SaveWriter;
+import controller.User;
+import controller.UserDataController;
+import controller.UserManager;
+import controller.UserStore;
+import model.Board;
+import model.GameEngine;
+import model.MapModel;
+import model.Move;
+import model.MoveGenerator;
+import model.level.LevelParser;
+import model.replay.ReplayRecorder;
+import model.solver.*;
+import view.game.BoxComponent;
+import view.game.GamePanel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Regression suite over the game: the rules (GameEngine, which GameController.moveBox, isMoveValid and
+ * checkWinCondition run on), MapModel.getId, every solver on every shipped level, saving and loading
+ * a game, a save slot and a user, and painting GamePanel and BoxComponent into an offscreen image.
+ * Run it headless from the project root:
+ *   java -Djava.awt.headless=true benchmark.BenchmarkSuite [--json file] [--csv file] [--filter regex] [--quick]
+ * Results are throughput (ops/s). The save and user benchmarks write under data/, userdata/ and replays/ as the
+ * game does, with a user name of their own, and remove those files afterwards.
+ */
+
+public class BenchmarkSuite {
+    private static final String USER = "benchmark-user";
+    private static final int BOARDS = 4096;
+    // moves in the undo history of the benchmarked save slot
+    private static final int SLOT_MOVES = 200;
+
+    public static void main(String[] args) throws Exception {
+        Path json = null;
+        Path csv = null;
+        String filter = null;
+        boolean quick = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--json" -> json = Path.of(args[++i]);
+                case "--csv" -> csv = Path.of(args[++i]);
+                case "--filter" -> filter = args[++i];
+                case "--quick" -> quick = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        Harness harness = quick ? new Harness(1, 3, 200, filter) : new Harness(3, 5, 1000, filter);
+        try {
+            rules(harness);
+            solvers(harness);
+            persistence(harness);
+            rendering(harness);
+        } finally {
+            cleanUp();
+        }
+
+        if (json != null) harness.writeJson(json);
+        if (csv != null) harness.writeCsv(csv);
+        System.out.println("(sink " + harness.getSink() + ")");
+        System.exit(0);
+    }
+
+    private static void rules(Harness harness) throws Exception {
+        long[] boards = MoveGeneratorBenchmark.reachableBoards(new File("resources/levels/hard"));
+        SplittableRandom random = new SplittableRandom(17);
+        GameEngine[] engines = new GameEngine[BOARDS];
+        // one legal move per engine, and one random (mostly illegal) query
+        int[] legal = new int[BOARDS];
+        int[] queries = new int[BOARDS];
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < BOARDS; i++) {
+            long board = boards[random.nextInt(boards.length)];
+            engines[i] = new GameEngine(new MapModel(board, "Hard"));
+            int count = MoveGenerator.generate(board, MoveGenerator.Metric.STEP, moves);
+            legal[i] = moves[random.nextInt(count)];
+            int from = random.nextInt(Board.CELLS);
+            queries[i] = Move.of(Math.max(1, Board.code(board, from)), from, random.nextInt(Board.CELLS));
+        }
+        int mask = BOARDS - 1;
+
+        harness.run("rules.isMoveValid", i -> {
+            int q = queries[i & mask];
+            return engines[i & mask].isMoveValid(Move.code(q), Move.fromRow(q), Move.fromCol(q), Move.toRow(q), Move.toCol(q)) ? 1 : 0;
+        });
+        harness.run("rules.moveBoxAndUndo", i -> {
+            GameEngine engine = engines[i & mask];
+            int m = legal[i & mask];
+            int done = engine.move(Move.fromRow(m), Move.fromCol(m), Move.direction(m));
+            engine.undo();
+            engine.clearHistory();
+            return done;
+        });
+        harness.run("rules.checkWinCondition", i -> engines[i & mask].isWon() ? 1 : 0);
+        harness.run("model.getId", i -> {
+            MapModel model = engines[i & mask].getModel();
+            long sum = 0;
+            for (int row = 0; row < Board.HEIGHT; row++)
+                for (int col = 0; col < Board.WIDTH; col++)
+                    sum += model.getId(row, col);
+            return sum;
+        });
+    }
+
+    private static void solvers(Harness harness) throws Exception {
+        Solver[] solvers = {new BfsSolver(), new BidirectionalBfsSolver(), new AStarSolver(), new IdaStarSolver(),
+                new ToolAwareSolver(1, 0)};
+        SearchLimits limits = SearchLimits.millis(2000);
+        for (String difficulty : new String[] {"easy", "medium", "hard"}) {
+            for (int n = 1; n <= 3; n++) {
+                Path file = Path.of("resources/levels", difficulty, n + ".txt");
+                if (!Files.isRegularFile(file)) continue;
+                long start = LevelParser.read(file);
+                for (Solver solver : solvers) {
+                    // a strategy that runs out of budget would only measure the budget
+                    if (solver.solve(start, limits, CancellationToken.NONE).getStatus() == Solution.Status.BUDGET_EXHAUSTED) continue;
+                    String name = "solver." + solver.getName().replaceAll("[^A-Za-z0-9*]+", "") + "." + difficulty + n;
+                    harness.run(name, i -> solver.solve(start, limits, CancellationToken.NONE).getExploredStates());
+                }
+            }
+        }
+    }
+
+    private static void persistence(Harness harness) throws Exception {
+        User user = new User(USER, "password");
+        MapModel model = new MapModel(LevelParser.read(Path.of("resources/levels/hard/1.txt")), "Hard");
+        GamePanel panel = new QuietGamePanel(model);
+        panel.setTimeLabel(new JLabel());
+        GameController controller = new GameController(panel, model, user);
+        controller.stopGameTimer();
+        UserDataController data = controller.getUserDataController();
+
+        // what the EDT pays for a save, the write itself happens on the save writer
+        harness.run("persistence.saveGame", i -> {
+            data.saveGame(true);
+            return 1;
+        });
+        SaveWriter.getDefault().flush();
+        Path saveFile = Path.of("data", USER, "data.txt");
+        byte[] saved = Files.readAllBytes(saveFile);
+        harness.run("persistence.writeAtomically", i -> {
+            SaveWriter.writeAtomically(saveFile, saved);
+            return saved.length;
+        });
+        harness.run("persistence.loadGame", i -> {
+            data.loadGame();
+            return model.getState();
+        });
+        // what the EDT pays per move for the journal, commits happen on the journal thread
+        GameEngine engine = controller.getEngine();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        MoveGenerator.generate(model.getState(), MoveGenerator.Metric.STEP, moves);
+        int legal = moves[0];
+        harness.run("persistence.journalMoveAndUndo", i -> {
+            int done = engine.move(Move.fromRow(legal), Move.fromCol(legal), Move.direction(legal));
+            engine.undo();
+            engine.clearHistory();
+            return done;
+        });
+        // a slot of a game with SLOT_MOVES moves in its history: what the EDT pays to save it, and reading it back
+        SplittableRandom random = new SplittableRandom(25);
+        for (int n = 0; n < SLOT_MOVES; n++) {
+            int count = MoveGenerator.generate(model.getState(), MoveGenerator.Metric.STEP, moves);
+            int move = moves[random.nextInt(count)];
+            engine.move(Move.fromRow(move), Move.fromCol(move), Move.direction(move));
+        }
+        SaveSlots slots = data.getSlots();
+        harness.run("persistence.saveSlot", i -> {
+            slots.save("benchmark", false, SaveSlots.capture(engine), null);
+            return 1;
+        });
+        SaveWriter.getDefault().flush();
+        // the index is written from the slot's callback on the EDT
+        SwingUtilities.invokeAndWait(() -> { });
+        SaveWriter.getDefault().flush();
+        SaveSlots.Slot slot = slots.list().getFirst();
+        harness.run("persistence.loadSlot", i -> slots.load(slot).getSteps());
+        engine.clearHistory();
+        controller.getJournal().close();
+        controller.getJournal().flush();
+        harness.run("persistence.saveUser", i -> UserManager.saveUser(user) ? 1 : 0);
+        harness.run("persistence.loadUser", i -> UserManager.loadUser(USER, "password").getBestSteps());
+        controller.shutdown();
+    }
+
+    private static void rendering(Harness harness) throws Exception {
+        MapModel model = new MapModel(LevelParser.read(Path.of("resources/levels/hard/1.txt")), "Hard");
+        GamePanel panel = new QuietGamePanel(model);
+        BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        harness.run("render.gamePanel", i -> {
+            Graphics2D g = image.createGraphics();
+            try {
+                panel.paint(g);
+            } finally {
+                g.dispose();
+            }
+            return image.getRGB(i % image.getWidth(), 0);
+        });
+
+        Image picture = new ImageIcon(BenchmarkSuite.class.getResource("/images/blocks/CaoCao.png")).getImage();
+        BoxComponent box = new BoxComponent(picture, 0, 0, Color.GREEN);
+        box.setSize(160, 160);
+        BufferedImage boxImage = new BufferedImage(160, 160, BufferedImage.TYPE_INT_ARGB);
+        harness.run("render.boxComponent", i -> {
+            Graphics2D g = boxImage.createGraphics();
+            try {
+                box.setSelected((i & 1) == 0);
+                box.paint(g);
+            } finally {
+                g.dispose();
+            }
+            return boxImage.getRGB(80, i % 160);
+        });
+    }
+
+    private static void cleanUp() throws IOException {
+        UserStore.getDefault().delete(USER);
+        deleteAll(Path.of("data", USER));
+        // the game controllers of the persistence benchmarks record their games like any user's
+        deleteAll(ReplayRecorder.DIRECTORY.resolve(USER));
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+        }
+    }
+
+    // the game reports saves and loads in dialogs, which a headless run cannot show
+    private static class QuietGamePanel extends GamePanel {
+        QuietGamePanel(MapModel model) {
+            super(model);
+        }
+
+        @Override
+        public void showInfoMessage(String message) {
+        }
+
+        @Override
+        public void showErrorMessage(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
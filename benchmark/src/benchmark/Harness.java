@@ -0,0 +1,145 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A small stand-in for JMH, which needs a build tool this project does not have: timed warmup and
+ * measurement iterations, a sink so results are not optimized away, and throughput scores written as
+ * JSON in the shape of JMH's -rf json output (so existing JMH result viewers and diff scripts work)
+ * or as CSV.
+ */
+
+final class Harness {
+    interface Benchmark {
+        /**
+         * One operation; i counts the calls, the result goes to the sink.
+         */
+        long run(int i) throws Exception;
+    }
+
+    static final class Result {
+        private final String name;
+        private final double[] scores;
+
+        private Result(String name, double[] scores) {
+            this.name = name;
+            this.scores = scores;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        double getScore() {
+            double sum = 0;
+            for (double score : scores) sum += score;
+            return sum / scores.length;
+        }
+
+        // standard deviation of the iterations
+        double getError() {
+            if (scores.length < 2) return 0;
+            double mean = getScore();
+            double sum = 0;
+            for (double score : scores) sum += (score - mean) * (score - mean);
+            return Math.sqrt(sum / (scores.length - 1));
+        }
+    }
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+    private final List<Result> results = new ArrayList<>();
+    // keeps every result alive so the JIT cannot drop the work
+    private long sink;
+
+    Harness(int warmupIterations, int iterations, long iterationMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.filter = Pattern.compile(filter == null ? ".*" : filter);
+    }
+
+    void run(String name, Benchmark benchmark) throws Exception {
+        if (!filter.matcher(name).find()) return;
+
+        int calls = 0;
+        for (int w = 0; w < warmupIterations; w++) calls = iteration(benchmark, calls, null);
+
+        double[] scores = new double[iterations];
+        for (int m = 0; m < iterations; m++) {
+            double[] score = new double[1];
+            calls = iteration(benchmark, calls, score);
+            scores[m] = score[0];
+        }
+        Result result = new Result(name, scores);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-44s %16.1f +- %-12.1f ops/s%n", name, result.getScore(), result.getError());
+    }
+
+    private int iteration(Benchmark benchmark, int calls, double[] score) throws Exception {
+        long begin = System.nanoTime();
+        long elapsed;
+        int ops = 0;
+        do {
+            // check the clock every few calls only, fast operations would mostly measure nanoTime
+            for (int k = 0; k < 16; k++) sink += benchmark.run(calls++);
+            ops += 16;
+            elapsed = System.nanoTime() - begin;
+        } while (elapsed < iterationNanos);
+        if (score != null) score[0] = ops * 1e9 / elapsed;
+        return calls;
+    }
+
+    long getSink() {
+        return sink;
+    }
+
+    void writeJson(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            sb.append("  {\n");
+            sb.append("    \"benchmark\" : \"").append(result.getName()).append("\",\n");
+            sb.append("    \"mode\" : \"thrpt\",\n");
+            sb.append("    \"threads\" : 1,\n");
+            sb.append("    \"jvm\" : \"").append(json(System.getProperty("java.home"))).append("\",\n");
+            sb.append("    \"vmVersion\" : \"").append(json(System.getProperty("java.vm.version"))).append("\",\n");
+            sb.append("    \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+            sb.append("    \"measurementIterations\" : ").append(iterations).append(",\n");
+            sb.append("    \"measurementTime\" : \"").append(iterationNanos / 1_000_000).append(" ms\",\n");
+            sb.append("    \"primaryMetric\" : {\n");
+            sb.append(String.format(Locale.ROOT, "      \"score\" : %.3f,%n", result.getScore()));
+            sb.append(String.format(Locale.ROOT, "      \"scoreError\" : %.3f,%n", result.getError()));
+            sb.append("      \"scoreUnit\" : \"ops/s\",\n");
+            sb.append("      \"rawData\" : [ [ ");
+            for (int k = 0; k < result.scores.length; k++) {
+                if (k > 0) sb.append(", ");
+                sb.append(String.format(Locale.ROOT, "%.3f", result.scores[k]));
+            }
+            sb.append(" ] ]\n    }\n  }").append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        sb.append("]\n");
+        Files.writeString(file, sb);
+    }
+
+    void writeCsv(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder("\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error\",\"Unit\"\n");
+        for (Result result : results) {
+            sb.append(String.format(Locale.ROOT, "\"%s\",\"thrpt\",1,%d,%.3f,%.3f,\"ops/s\"%n",
+                    result.getName(), result.scores.length, result.getScore(), result.getError()));
+        }
+        Files.writeString(file, sb);
+    }
+
+    private static String json(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
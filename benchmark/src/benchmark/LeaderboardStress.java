@@ -0,0 +1,180 @@
+package benchmark;
+
+import model.leaderboard.Leaderboard;
+import model.leaderboard.Metric;
+import model.leaderboard.Ranking;
+import model.leaderboard.Score;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Stress test for the Leaderboard: many threads submit random results for a pool of players on a few
+ * levels and ask for ranks in between, then every player's best, rank and the top lists are checked
+ * against what the threads submitted. With --file the leaderboard is written there and the checks run
+ * again on the reopened file. Arguments:
+ *   java benchmark.LeaderboardStress [--threads n] [--submissions n] [--players n] [--levels n] [--file path]
+ * defaults to 2 threads per core, 4,000,000 submissions, 20,000 players and 4 levels, in memory.
+ */
+
+public class LeaderboardStress {
+    // one rank query every this many submissions
+    private static final int QUERY_INTERVAL = 8;
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        int submissions = 4_000_000;
+        int players = 20_000;
+        int levels = 4;
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--submissions" -> submissions = Integer.parseInt(args[++i]);
+                case "--players" -> players = Integer.parseInt(args[++i]);
+                case "--levels" -> levels = Integer.parseInt(args[++i]);
+                case "--file" -> file = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (file != null) Files.deleteIfExists(file);
+
+        Leaderboard leaderboard = file == null ? new Leaderboard(Leaderboard.DEFAULT_TOP_SIZE)
+                : Leaderboard.open(file, Leaderboard.DEFAULT_TOP_SIZE);
+        String[] levelIds = new String[levels];
+        for (int i = 0; i < levels; i++) levelIds[i] = "level-" + i;
+        String[] names = new String[players];
+        for (int i = 0; i < players; i++) names[i] = "player-" + i;
+
+        // best value per metric, level and player, as each thread submitted it
+        int metrics = Metric.values().length;
+        int[][] expected = new int[threads][metrics * levels * players];
+        long[] sinks = new long[threads];
+        int perThread = submissions / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            int playerCount = players;
+            int levelCount = levels;
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(31L * id + 7);
+                int[] best = expected[id];
+                Arrays.fill(best, Integer.MAX_VALUE);
+                long sink = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    int level = random.nextInt(levelCount);
+                    int player = random.nextInt(playerCount);
+                    // mostly plausible solutions, a few far off ones
+                    int steps = 81 + (random.nextInt(16) == 0 ? random.nextInt(5000) : random.nextInt(300));
+                    long seconds = 5 + random.nextInt(295);
+                    leaderboard.submit(levelIds[level], names[player], steps, seconds);
+                    for (Metric metric : Metric.values()) {
+                        int slot = (metric.ordinal() * levelCount + level) * playerCount + player;
+                        best[slot] = Math.min(best[slot], metric.of(steps, seconds));
+                    }
+                    if (i % QUERY_INTERVAL == 0) {
+                        sink += leaderboard.rank(levelIds[random.nextInt(levelCount)], Metric.SCORE, names[random.nextInt(playerCount)]);
+                    }
+                }
+                sinks[id] = sink;
+            }, "leaderboard-stress-" + t);
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        long nanos = System.nanoTime() - begin;
+        long total = (long) perThread * threads;
+        System.out.printf(Locale.ROOT, "%d threads, %d submissions and %d rank queries in %.2f s: %.0f submissions/s (sink %d)%n",
+                threads, total, total / QUERY_INTERVAL, nanos / 1e9, total * 1e9 / nanos, Arrays.stream(sinks).sum());
+
+        int[] merged = new int[metrics * levels * players];
+        Arrays.fill(merged, Integer.MAX_VALUE);
+        for (int[] best : expected) {
+            for (int i = 0; i < merged.length; i++) merged[i] = Math.min(merged[i], best[i]);
+        }
+
+        boolean ok = check(leaderboard, levelIds, names, merged);
+        if (file != null) {
+            leaderboard.close();
+            long size = Files.size(file);
+            Leaderboard reopened = Leaderboard.open(file, Leaderboard.DEFAULT_TOP_SIZE);
+            System.out.println("Reopened " + file + " (" + size + " bytes, " + Files.size(file) + " after compaction)");
+            ok &= check(reopened, levelIds, names, merged);
+            reopened.close();
+        }
+        System.out.println(ok ? "All checks passed" : "CHECKS FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean check(Leaderboard leaderboard, String[] levelIds, String[] names, int[] expected) {
+        int players = names.length;
+        int levels = levelIds.length;
+        for (Metric metric : Metric.values()) {
+            for (int level = 0; level < levels; level++) {
+                Ranking ranking = leaderboard.get(levelIds[level], metric);
+                int[] values = new int[players];
+                int count = 0;
+                for (int player = 0; player < players; player++) {
+                    int want = expected[(metric.ordinal() * levels + level) * players + player];
+                    Score score = ranking == null ? null : ranking.get(names[player]);
+                    int got = score == null ? Integer.MAX_VALUE : score.getValue();
+                    if (got != want) {
+                        return fail(metric + " " + levelIds[level] + " " + names[player] + ": best " + got + ", submitted " + want);
+                    }
+                    if (score != null) values[count++] = got;
+                }
+                if (ranking == null) continue;
+                if (ranking.size() != count) return fail(metric + " " + levelIds[level] + ": " + ranking.size() + " players, expected " + count);
+
+                int[] sorted = Arrays.copyOf(values, count);
+                Arrays.sort(sorted);
+                for (int player = 0; player < players; player++) {
+                    Score score = ranking.get(names[player]);
+                    if (score == null) continue;
+                    int below = lowerBound(sorted, score.getValue());
+                    if (ranking.rank(names[player]) != below + 1) {
+                        return fail(metric + " " + levelIds[level] + " " + names[player] + ": rank "
+                                + ranking.rank(names[player]) + ", expected " + (below + 1));
+                    }
+                }
+                List<Score> top = ranking.top();
+                if (top.size() != Math.min(count, leaderboard.getTopSize())) return fail(metric + " top size " + top.size());
+                for (int i = 0; i < top.size(); i++) {
+                    if (top.get(i).getValue() != sorted[i]) {
+                        return fail(metric + " " + levelIds[level] + ": top " + i + " is " + top.get(i) + ", expected value " + sorted[i]);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static boolean fail(String message) {
+        System.out.println("Check failed: " + message);
+        return false;
+    }
+}
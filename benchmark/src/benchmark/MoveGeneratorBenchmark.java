@@ -0,0 +1,73 @@
+package benchmark;
+
+import model.Move;
+import model.MoveGenerator;
+import model.solver.LongHashSet;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Measures how many moves per second MoveGenerator lists, for every metric, over all boards
+ * reachable from the hard levels. Run it from the project root.
+ */
+
+public class MoveGeneratorBenchmark {
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        long[] boards = reachableBoards(new File("resources/levels/hard"));
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        System.out.printf("%d boards%n", boards.length);
+        System.out.printf("%-8s %14s %14s %10s%n", "metric", "boards/s", "moves/s", "moves/board");
+
+        for (MoveGenerator.Metric metric : MoveGenerator.Metric.values()) {
+            // warm up, then measure whole passes over the boards
+            runPasses(boards, metric, moves, MEASURE_NANOS / 4);
+            long begin = System.nanoTime();
+            long[] counts = runPasses(boards, metric, moves, MEASURE_NANOS);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("%-8s %14.0f %14.0f %10.2f%n", metric, counts[0] / seconds, counts[1] / seconds,
+                    (double) counts[1] / counts[0]);
+        }
+    }
+
+    // returns {boards, moves} generated in the given time
+    private static long[] runPasses(long[] boards, MoveGenerator.Metric metric, int[] moves, long nanos) {
+        long generated = 0;
+        long visited = 0;
+        long begin = System.nanoTime();
+        while (System.nanoTime() - begin < nanos) {
+            for (long board : boards) generated += MoveGenerator.generate(board, metric, moves);
+            visited += boards.length;
+        }
+        return new long[] {visited, generated};
+    }
+
+    static long[] reachableBoards(File folder) throws Exception {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null) return new long[0];
+
+        LongHashSet seen = new LongHashSet();
+        long[] boards = new long[1024];
+        int size = 0;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (File file : files) {
+            long start = SolverBenchmark.readLevel(file);
+            if (!seen.add(start)) continue;
+            if (size == boards.length) boards = Arrays.copyOf(boards, size << 1);
+            boards[size++] = start;
+
+            for (int head = size - 1; head < size; head++) {
+                int count = MoveGenerator.generate(boards[head], MoveGenerator.Metric.STEP, moves);
+                for (int k = 0; k < count; k++) {
+                    long next = Move.apply(boards[head], moves[k]);
+                    if (!seen.add(next)) continue;
+                    if (size == boards.length) boards = Arrays.copyOf(boards, size << 1);
+                    boards[size++] = next;
+                }
+            }
+        }
+        return Arrays.copyOf(boards, size);
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import model.level.LevelParser;
+import model.solver.*;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs every solver strategy on every level under resources/levels and prints the median time,
+ * the solution length and how many boards each strategy touched.
+ * Run it from the project root; the first argument overrides the time budget per solve in ms.
+ */
+
+public class SolverBenchmark {
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+    private static final int WARMUP = 3;
+    private static final int MEASURED = 10;
+
+    public static void main(String[] args) throws Exception {
+        long budgetMillis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        Solver[] solvers = {new BfsSolver(), new BidirectionalBfsSolver(), new AStarSolver(), new IdaStarSolver(),
+                new ToolAwareSolver(1, 0)};
+
+        System.out.printf("%-12s %-18s %8s %10s %12s %s%n", "level", "solver", "moves", "explored", "median ms", "status");
+        for (String difficulty : DIFFICULTIES) {
+            File[] files = new File("resources/levels/" + difficulty).listFiles((dir, name) -> name.endsWith(".txt"));
+            if (files == null) continue;
+            Arrays.sort(files);
+
+            for (File file : files) {
+                long start = readLevel(file);
+                String level = difficulty + "/" + file.getName();
+                for (Solver solver : solvers) {
+                    SearchLimits limits = SearchLimits.millis(budgetMillis);
+                    for (int i = 0; i < WARMUP; i++) solver.solve(start, limits, CancellationToken.NONE);
+
+                    long[] times = new long[MEASURED];
+                    Solution solution = null;
+                    for (int i = 0; i < MEASURED; i++) {
+                        solution = solver.solve(start, limits, CancellationToken.NONE);
+                        times[i] = solution.getElapsedNanos();
+                        // a strategy that runs out of budget once will do so every time
+                        if (solution.getStatus() == Solution.Status.BUDGET_EXHAUSTED) {
+                            times = Arrays.copyOf(times, i + 1);
+                            break;
+                        }
+                    }
+                    Arrays.sort(times);
+                    System.out.printf("%-12s %-18s %8d %10d %12.3f %s%n", level, solver.getName(),
+                            solution.getLength(), solution.getExploredStates(), times[times.length / 2] / 1e6,
+                            solution.getStatus());
+                }
+            }
+        }
+    }
+
+    static long readLevel(File file) throws Exception {
+        return LevelParser.read(file.toPath());
+    }
+}
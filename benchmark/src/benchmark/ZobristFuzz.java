@@ -0,0 +1,59 @@
+package benchmark;
+
+import model.Board;
+import model.MapModel;
+import model.Move;
+import model.MoveGenerator;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Fuzz harness for the incremental hash in MapModel: plays random moves, hammer and obstacle uses,
+ * resets and whole-board replacements on every level and checks after each step that the kept hash
+ * equals the one computed from scratch. Arguments: steps per level (default 1,000,000) and seed.
+ */
+
+public class ZobristFuzz {
+    public static void main(String[] args) throws Exception {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 109L;
+        Random random = new Random(seed);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (String difficulty : new String[] {"easy", "medium", "hard"}) {
+            File[] files = new File("resources/levels/" + difficulty).listFiles((dir, name) -> name.endsWith(".txt"));
+            if (files == null) continue;
+
+            for (File file : files) {
+                MapModel model = new MapModel(SolverBenchmark.readLevel(file), difficulty);
+                for (int step = 0; step < steps; step++) {
+                    int action = random.nextInt(100);
+                    int row = random.nextInt(Board.HEIGHT);
+                    int col = random.nextInt(Board.WIDTH);
+                    if (action < 90) {
+                        int count = MoveGenerator.generate(model.getState(), MoveGenerator.Metric.STEP, moves);
+                        if (count == 0) continue;
+                        int move = moves[random.nextInt(count)];
+                        model.moveBlock(Move.code(move), Move.fromRow(move), Move.fromCol(move), Move.toRow(move), Move.toCol(move));
+                    } else if (action < 94) {
+                        model.removeSoldier(row, col);
+                    } else if (action < 97) {
+                        model.setObstacle(row, col);
+                    } else if (action < 99) {
+                        model.resetMap();
+                    } else {
+                        model.setMatrix(Board.toMatrix(Board.mirror(model.getState())));
+                    }
+
+                    if (!model.verifyHash()) {
+                        System.out.println("Hash mismatch in " + file + " after " + step + " steps:");
+                        System.out.print(Board.toString(model.getState()));
+                        System.exit(1);
+                    }
+                }
+                System.out.println(difficulty + "/" + file.getName() + ": " + steps + " steps ok");
+            }
+        }
+    }
+}
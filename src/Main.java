@@ -1,9 +1,12 @@
 import model.BackgroundMusic;
+import model.level.LevelCatalog;
 import view.login.LoginFrame;
 import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        // index the level files once, before any window needs them
+        LevelCatalog.getDefault();
         SwingUtilities.invokeLater(() -> {
             LoginFrame loginFrame = new LoginFrame(600,400);
             loginFrame.setVisible(true);
@@ -1,38 +1,44 @@
 package controller;
 
 import model.*;
+import model.leaderboard.Leaderboard;
+import model.leaderboard.Metric;
+import model.leaderboard.Ranking;
+import model.replay.Replay;
+import model.replay.ReplayRecorder;
+import model.replay.ReplayVerifier;
 import view.game.BoxComponent;
 import view.game.GamePanel;
 
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 import java.util.Random;
-import java.util.Scanner;
-import java.util.Stack;
+import java.util.function.Consumer;
 import javax.swing.*;
 
 /**
  * It is a bridge to combine GamePanel(view) and MapMatrix(model) in one game.
- * You can design several methods about the game logic in this class.
+ * The rules, the move history and the clock live in GameEngine; this class turns them into Swing
+ * animations, timers and dialogs. Games of registered users are recorded as replays (see ReplayRecorder).
  */
 
 public class GameController {
     private final GamePanel view;
     private final MapModel model;
+    private final GameEngine engine;
 
-    private final int winx = 1;
-    private final int winy = 3;
     private int selectedRow = -1;
     private int selectedCol = -1;
     private User currentUser;
-    private Stack<MoveRecord> moveHistory = new Stack<>();
 
-    private long startTime;
     private Timer gameTimer;
+    private ReplayRecorder recorder;
+    private MoveJournal journal;
 
     private UserDataController userDataController;
-    private static long GAME_DURATION = 5 * 60 * 1000;
+    private final HintService hintService;
 
     public enum Tool { HAMMER, OBSTACLE, NONE }
     private Tool currentTool = Tool.NONE;
@@ -42,184 +48,84 @@ public class GameController {
     private long winTime;
     private final Random random = new Random();
 
-    public static class MoveRecord {
-        private final int blockId;
-        private final int fromRow, fromCol;
-        private final int toRow, toCol;
-        private final boolean isValid;
-
-        public MoveRecord(int blockId, int fromRow, int fromCol, int toRow, int toCol, boolean isValid) {
-            this.blockId = blockId;
-            this.fromRow = fromRow;
-            this.fromCol = fromCol;
-            this.toRow = toRow;
-            this.toCol = toCol;
-            this.isValid = isValid;
-        }
-
-        public int getBlockId() {
-            return blockId;
-        }
-
-        public int getFromRow() {
-            return fromRow;
-        }
-
-        public int getFromCol() {
-            return fromCol;
-        }
-
-        public int getToRow() {
-            return toRow;
-        }
-
-        public int getToCol() {
-            return toCol;
-        }
-
-        public boolean isValid() {
-            return isValid;
-        }
-    }
-
-
     public GameController(GamePanel view, MapModel model, User user) {
         this.view = view;
         this.model = model;
+        this.engine = new GameEngine(model);
         this.currentUser = user;
         this.view.setController(this);
         this.userDataController = new UserDataController(this, view, model, user);
+        this.hintService = new HintService(model);
+        hintService.boardChanged();
 
         startGameTimer(300);
+        if (currentUser != null && !currentUser.isGuest()) {
+            journal = new MoveJournal(engine, MoveJournal.fileFor(currentUser.getUsername()));
+        }
         userDataController.setupAutoSave(1);
+        startRecording();
     }
 
 
     public boolean moveBox(int row, int col, Direction direction) {
-        int blockId = model.getId(row, col);
-        if (blockId == 0) return false;
-
-        int toRow = row + direction.getRow();
-        int toCol = col + direction.getCol();
-
-        if (!isMoveValid(blockId, row, col, toRow, toCol)) return false;
+        int move = engine.move(row, col, direction);
+        if (move == Move.NONE) return false;
 
-        moveHistory.push(new MoveRecord(blockId, row, col, toRow, toCol, true));
-        updateModelPosition(blockId, row, col, toRow, toCol);
-        updateViewPosition(row, col, toRow, toCol);
+        updateViewPosition(row, col, Move.toRow(move), Move.toCol(move));
+        hintService.boardChanged();
         return true;
     }
 
-    private boolean isMoveValid(int blockId, int fromRow, int fromCol, int toRow, int toCol) {
-
-            if (model.getId(toRow, toCol) == -1) return false;
-            if (!model.checkInHeightSize(toRow) || !model.checkInWidthSize(toCol)) return false;
-
-            switch (blockId) {
-                case 1:
-                    return checkLargeBlockMove(fromRow, fromCol, toRow, toCol, 2, 2);
-                case 2:
-                    return checkLargeBlockMove(fromRow, fromCol, toRow, toCol, 2, 1);
-                case 3:
-                    return checkLargeBlockMove(fromRow, fromCol, toRow, toCol, 1, 2);
-                default:
-                    return model.getId(toRow, toCol) == 0;
-            }
+    public boolean undoMove() {
+        int lastMove = engine.getLastMove();
+        if (lastMove == Move.NONE) {
+            System.out.println("No valid moves to undo!");
+            return false;
         }
-
-    private boolean checkLargeBlockMove(int fromRow, int fromCol, int toRow, int toCol, int height, int width) {
-        for (int r = 0; r < height; r++)
-        {
-            for (int c = 0; c < width; c++)
-            {
-                int checkRow = toRow + r;
-                int checkCol = toCol + c;
-
-                if (model.getId(checkRow, checkCol) == -1) return false;
-                if (!model.checkInHeightSize(checkRow) || !model.checkInWidthSize(checkCol)) return false;
-
-                boolean isOriginal = (checkRow >= fromRow && checkRow < fromRow + height) &&
-                        (checkCol >= fromCol && checkCol < fromCol + width);
-
-                if (!isOriginal && model.getId(checkRow, checkCol) != 0) return false;
-            }
+        if (engine.undo() == Move.NONE) {
+            System.out.println("Undo blocked: position is occupied!");
+            return false;
         }
-        return true;
-    }
-
-    public boolean undoMove() {
-        if (!moveHistory.isEmpty()) {
-            MoveRecord lastMove = moveHistory.pop();
-            int blockId = lastMove.getBlockId();
-
-            if (model.isOccupied(lastMove.getFromRow(), lastMove.getFromCol())) {
-                moveHistory.push(lastMove);
-                System.out.println("Undo blocked: position is occupied!");
-                return false;
-            }
 
-            BoxComponent box = view.getBoxAt(lastMove.getToRow(), lastMove.getToCol());
+        if (Move.isTool(lastMove)) {
+            view.syncFromModel();
+        } else {
+            BoxComponent box = view.getBoxAt(Move.toRow(lastMove), Move.toCol(lastMove));
             if (box != null) {
-                updateModelPosition(blockId,
-                        lastMove.getToRow(), lastMove.getToCol(),
-                        lastMove.getFromRow(), lastMove.getFromCol()
-                );
-
-                box.setRow(lastMove.getFromRow());
-                box.setCol(lastMove.getFromCol());
+                box.setRow(Move.fromRow(lastMove));
+                box.setCol(Move.fromCol(lastMove));
                 box.setLocation(
                         box.getCol() * view.getGRID_SIZE() + 2,
                         box.getRow() * view.getGRID_SIZE() + 2
                 );
                 box.repaint();
-
-                selectedRow = lastMove.getFromRow();
-                selectedCol = lastMove.getFromCol();
-                view.highlightSelectedBox(selectedRow, selectedCol);
-                return true;
             } else {
-                moveHistory.push(lastMove);
-                System.out.println("Undo failed: block already deleted.");
-                return false;
+                view.syncFromModel();
             }
+            selectedRow = Move.fromRow(lastMove);
+            selectedCol = Move.fromCol(lastMove);
+            view.highlightSelectedBox(selectedRow, selectedCol);
         }
-
-        System.out.println("No valid moves to undo!");
-        return false;
+        hintService.boardChanged();
+        return true;
     }
 
+    public boolean redoMove() {
+        int move = engine.redo();
+        if (move == Move.NONE) {
+            System.out.println(engine.getRedoMove() == Move.NONE ? "No moves to redo!" : "Redo blocked: position is occupied!");
+            return false;
+        }
 
-    private void updateModelPosition(int blockId, int fromRow, int fromCol, int toRow, int toCol) {
-        model.getMatrix()[fromRow][fromCol] = 0;
-
-        // for large blocks, each id is according to the up-left
-        switch (blockId) {
-            case 1:
-                model.getMatrix()[fromRow + 1][fromCol] = 0;
-                model.getMatrix()[fromRow][fromCol + 1] = 0;
-                model.getMatrix()[fromRow + 1][fromCol + 1] = 0;
-
-                model.getMatrix()[toRow][toCol] = blockId;
-                model.getMatrix()[toRow + 1][toCol] = blockId;
-                model.getMatrix()[toRow][toCol + 1] = blockId;
-                model.getMatrix()[toRow + 1][toCol + 1] = blockId;
-                break;
-
-            case 2:
-                model.getMatrix()[fromRow + 1][fromCol] = 0;
-                model.getMatrix()[toRow][toCol] = blockId;
-                model.getMatrix()[toRow + 1][toCol] = blockId;
-                break;
-
-            case 3:
-                model.getMatrix()[fromRow][fromCol + 1] = 0;
-                model.getMatrix()[toRow][toCol] = blockId;
-                model.getMatrix()[toRow][toCol + 1] = blockId;
-                break;
-
-            default:
-                model.getMatrix()[toRow][toCol] = blockId;
+        if (!Move.isTool(move)) {
+            updateViewPosition(Move.fromRow(move), Move.fromCol(move), Move.toRow(move), Move.toCol(move));
+        } else if (Move.code(move) == Board.SOLDIER) {
+            view.removeBoxAt(Move.fromRow(move), Move.fromCol(move));
+        } else {
+            view.addObstacleAt(Move.fromRow(move), Move.fromCol(move));
         }
+        hintService.boardChanged();
+        return true;
     }
 
     private void updateViewPosition(int fromRow, int fromCol, int toRow, int toCol) {
@@ -230,53 +136,13 @@ public class GameController {
     }
 
     public void moveWithAnimation(int fromRow, int fromCol, int toRow, int toCol, BoxComponent box) {
-        final int startX = fromCol * view.getGRID_SIZE() + 2;
-        final int startY = fromRow * view.getGRID_SIZE() + 2;
-        final int targetX = toCol * view.getGRID_SIZE() + 2;
-        final int targetY = toRow * view.getGRID_SIZE() + 2;
-        final int duration = 200;
-        final long startTime = System.currentTimeMillis();
-
-        Timer timer = new Timer(16, e -> {
-            long elapsed = System.currentTimeMillis() - startTime;
-            float progress = Math.min(1.0f, (float) elapsed / duration);
-            float easedProgress = easeOutQuad(progress);
-
-            int currentX = (int) (startX + (targetX - startX) * easedProgress);
-            int currentY = (int) (startY + (targetY - startY) * easedProgress);
-
-            box.setLocation(currentX, currentY);
-            box.repaint();
-
-            if (progress >= 1.0f) {
-                ((Timer) e.getSource()).stop();
-                box.setRow(toRow);
-                box.setCol(toCol);
-                selectedRow = toRow;
-                selectedCol = toCol;
-                view.highlightSelectedBox(toRow, toCol);
-                view.repaint();
-            }
-        });
-
-        timer.setInitialDelay(0);
-        timer.start();
-    }
-
-    private float easeOutQuad(float t) {
-        return t * (2 - t);
+        selectedRow = toRow;
+        selectedCol = toCol;
+        view.animateBox(box, fromRow, fromCol, toRow, toCol, 200);
     }
 
     public void checkWinCondition() {
-        boolean win = true;
-        for (int i = 0; i <= 1; i++) {
-            for (int j = 0; j <= 1; j++) {
-                if (model.getId(winx + i, winy + j) != 1) {
-                    win = false;
-                    break;
-                }
-            }
-        }
+        boolean win = engine.isWon();
 
         if (win && !isWinning) {
             isWinning = true;
@@ -287,12 +153,17 @@ public class GameController {
 
             new SoundEffect().playEffect("resources/sound/win.mp3");
 
+            String rank = null;
             if (currentUser != null && !currentUser.isGuest()) {
-                currentUser.updateBestSteps(view.getSteps());
-                currentUser.updateBestTime(actualTime);
-                UserManager.saveUser(currentUser);
+                if (isVerified(view.getSteps(), actualTime)) {
+                    currentUser.updateBestSteps(view.getSteps());
+                    currentUser.updateBestTime(actualTime);
+                    UserManager.saveUser(currentUser);
+                    rank = submitScore(view.getSteps(), actualTime);
+                }
                 userDataController.saveGame(true);
             }
+            String rankText = rank;
 
             SwingUtilities.invokeLater(() -> {
                 JDialog victoryDialog = new JDialog((Frame)SwingUtilities.getWindowAncestor(view), "Victory!", true);
@@ -302,7 +173,7 @@ public class GameController {
                 fireworks = new FireworksEffect(500, 500);
                 victoryDialog.add(fireworks, BorderLayout.CENTER);
 
-                JPanel infoPanel = new JPanel(new GridLayout(3, 1));
+                JPanel infoPanel = new JPanel(new GridLayout(rankText == null ? 3 : 4, 1));
                 infoPanel.setOpaque(false);
 
                 JLabel congratsLabel = new JLabel("Victory! Congratulations!", SwingConstants.CENTER);
@@ -317,12 +188,17 @@ public class GameController {
                 infoPanel.add(congratsLabel);
                 infoPanel.add(stepsLabel);
                 infoPanel.add(timeLabel);
+                if (rankText != null) {
+                    JLabel rankLabel = new JLabel(rankText, SwingConstants.CENTER);
+                    rankLabel.setFont(new Font("Arial", Font.PLAIN, 20));
+                    infoPanel.add(rankLabel);
+                }
 
                 JLayeredPane layeredPane = new JLayeredPane();
                 layeredPane.setPreferredSize(new Dimension(500, 500));
 
                 fireworks.setBounds(0, 0, 500, 500);
-                infoPanel.setBounds(0, 150, 500, 100);
+                infoPanel.setBounds(0, 150, 500, rankText == null ? 100 : 130);
 
                 layeredPane.add(fireworks, JLayeredPane.DEFAULT_LAYER);
                 layeredPane.add(infoPanel, JLayeredPane.PALETTE_LAYER);
@@ -360,6 +236,30 @@ public class GameController {
         }
     }
 
+    // best scores only take results the replay of this game backs, see ReplayVerifier
+    private boolean isVerified(int steps, long seconds) {
+        if (recorder == null || recorder.getFile() == null) {
+            System.out.println("Best score not updated: the game was not recorded.");
+            return false;
+        }
+        recorder.finish(Replay.Result.WON, steps, seconds);
+        ReplayVerifier.Verdict verdict = ReplayVerifier.getDefault().verify(recorder.getFile(), steps, seconds);
+        if (!verdict.isValid()) {
+            System.out.println("Best score not updated: " + verdict.getStatus() + ", " + verdict.getReason());
+        }
+        return verdict.isValid();
+    }
+
+    // puts a verified win on the level's leaderboard and describes the player's places there
+    private String submitScore(int steps, long seconds) {
+        String level = Leaderboard.levelId(model.getInitialState());
+        Leaderboard leaderboard = Leaderboard.getDefault();
+        leaderboard.submit(level, currentUser.getUsername(), steps, seconds);
+        Ranking ranking = leaderboard.get(level, Metric.STEPS);
+        return "Rank: #" + ranking.rank(currentUser.getUsername()) + " by steps, #"
+                + leaderboard.rank(level, Metric.TIME, currentUser.getUsername()) + " by time of " + ranking.size();
+    }
+
     private String formatTime(long totalSeconds) {
         long minutes = totalSeconds / 60;
         long seconds = totalSeconds % 60;
@@ -367,31 +267,32 @@ public class GameController {
     }
 
     public void restartGame() {
-        model.resetMap();
+        engine.restart();
         view.initializeGame();
         selectedRow = -1;
         selectedCol = -1;
-        moveHistory.clear();
         view.setSteps(0);
         view.clearSelection();
         view.setTimeLabelString("Time Left: 05:00");
         stopGameTimer();
         startGameTimer(300);
+        hintService.request(view::showSolvability);
 
         // save game after restart
         if (currentUser != null && !currentUser.isGuest()) userDataController.saveGame(true);
     }
 
     public void startGameTimer(long timeLeft) {
-        startTime = System.currentTimeMillis();
-        GAME_DURATION = timeLeft * 1000;
+        // loading a save or a slot restarts the clock, the old timer must not keep ticking
+        stopGameTimer();
+        engine.startClock(timeLeft);
 
         gameTimer = new Timer(1000, e -> {
-            long elapsed = System.currentTimeMillis() - startTime;
-            long remaining = GAME_DURATION - elapsed;
+            long remaining = engine.getRemainingMillis();
 
             if (remaining <= 0) {
                 stopGameTimer();
+                if (recorder != null) recorder.finish(Replay.Result.TIMED_OUT);
                 view.setTimeLabelString("00:00");
                 view.timeoutDialog();
                 return;
@@ -412,24 +313,32 @@ public class GameController {
         }
     }
 
+    /**
+     * Stops the game timer and the hint service's worker, for a game that is closed.
+     */
+    public void shutdown() {
+        stopGameTimer();
+        hintService.shutdown();
+    }
+
     public long getActualTime() {
-        long currentTime = System.currentTimeMillis();
-        return (currentTime - startTime + 5 * 60 * 1000 - GAME_DURATION) / 1000;
+        return engine.getActualTime();
     }
 
     public boolean useTool(int row, int col) {
+        long before = model.getState();
         switch (currentTool) {
             case HAMMER:
-                if (model.getId(row, col) == 4) {
-                    model.removeSoldier(row, col);
+                if (engine.hammer(row, col)) {
                     view.removeBoxAt(row, col);
+                    hintService.toolUsed(before, Board.index(row, col), view::showSolvability);
                     return true;
                 }
                 break;
             case OBSTACLE:
-                if (model.getId(row, col) == 0) {
-                    model.setObstacle(row, col);
+                if (engine.placeObstacle(row, col)) {
                     view.addObstacleAt(row, col);
+                    hintService.toolUsed(before, Board.index(row, col), view::showSolvability);
                     return true;
                 }
                 break;
@@ -449,5 +358,49 @@ public class GameController {
         return currentTool;
     }
 
+    /**
+     * Starts a new replay from the current board, ending the one recorded so far.
+     * Guests are not recorded, like their games are not saved.
+     */
+    public void startRecording() {
+        stopRecording();
+        if (currentUser == null || currentUser.isGuest()) return;
+        try {
+            recorder = ReplayRecorder.create(engine, currentUser.getUsername());
+        } catch (IOException e) {
+            System.err.println("Replay recording failed: " + e.getMessage());
+        }
+    }
+
+    public void stopRecording() {
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
+    }
+
+    /**
+     * The journal of this game, null for guests.
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Called when the board was replaced from outside the controller, e.g. by loading a save.
+     */
+    public void boardChanged() {
+        hintService.boardChanged();
+    }
+
+    /**
+     * Passes the best next move for the current board to callback on the EDT, see HintService.
+     */
+    public void requestHint(Consumer<HintService.Hint> callback) {
+        hintService.request(callback);
+    }
+
     public UserDataController getUserDataController() { return userDataController; }
+
+    public GameEngine getEngine() { return engine; }
 }
\ No newline at end of file
@@ -0,0 +1,300 @@
+package controller;
+
+import model.Board;
+import model.MapModel;
+import model.Move;
+import model.Zobrist;
+import model.solver.AStarSolver;
+import model.solver.CancellationToken;
+import model.solver.DistanceDatabase;
+import model.solver.SearchLimits;
+import model.solver.Solution;
+import model.solver.Solver;
+
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Works out the best next move for the board in a MapModel without blocking the EDT.
+ * After every change the controller calls boardChanged(), which cancels the search for the old board
+ * and starts one for the new board on a background thread, so a hint is usually ready before it is asked.
+ * Boards in the level's DistanceDatabase are answered by a lookup; other boards (after a hammer or
+ * obstacle use, or a loaded save) are solved with A* under a budget. Results are cached by the model's
+ * Zobrist hash, and a solved path fills the cache for every board on it.
+ * After a tool use the path known for the previous board is reused where possible (see toolUsed), so
+ * the solvability of the new board is usually known without a search.
+ * All public methods are called on the EDT, callbacks are run on the EDT.
+ */
+
+public class HintService {
+    private static final int CACHE_SIZE = 4096;
+    private static final SearchLimits LIMITS = SearchLimits.of(2_000_000, 3000);
+
+    /**
+     * Result for one board. The move is Move.NONE when the board is already solved or no hint was found.
+     * A hint that is not exact comes from a path that is known to work but may not be the shortest.
+     */
+    public static class Hint {
+        private final long board;
+        private final int move;
+        private final int distance;
+        private final Solution.Status status;
+        private final boolean exact;
+
+        public Hint(long board, int move, int distance, Solution.Status status) {
+            this(board, move, distance, status, true);
+        }
+
+        public Hint(long board, int move, int distance, Solution.Status status, boolean exact) {
+            this.board = board;
+            this.move = move;
+            this.distance = distance;
+            this.status = status;
+            this.exact = exact;
+        }
+
+        public long getBoard() {
+            return board;
+        }
+
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Steps left to the goal, -1 when unknown.
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        public Solution.Status getStatus() {
+            return status;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+    }
+
+    private final MapModel model;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hint-service");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // only used on the executor thread
+    private final Solver solver = new AStarSolver();
+    private final Map<Long, Hint> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Hint> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private CompletableFuture<Hint> pending;
+    private long pendingBoard;
+    private CancellationToken pendingToken;
+    private boolean closed;
+
+    public HintService(MapModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Starts working on the model's current board, dropping the search for any older board.
+     */
+    public void boardChanged() {
+        if (closed) return;
+        long board = model.getState();
+        if (cached(board, model.getHash()) != null) return;
+        if (pending != null && pendingBoard == board && !pending.isDone()) return;
+
+        if (pendingToken != null) pendingToken.cancel();
+        CancellationToken token = new CancellationToken();
+        String levelFile = model.getLevelFile();
+        pendingToken = token;
+        pendingBoard = board;
+        // the database is mapped on the worker, the first use of a level touches the disk
+        pending = CompletableFuture.supplyAsync(() -> compute(board, DistanceDatabase.forLevel(levelFile), token), executor);
+    }
+
+    /**
+     * Passes the hint for the model's current board to callback on the EDT, right away when it is cached.
+     */
+    public void request(Consumer<Hint> callback) {
+        if (closed) return;
+        Hint hint = cached(model.getState(), model.getHash());
+        if (hint != null) {
+            callback.accept(hint);
+            return;
+        }
+
+        boardChanged();
+        pending.thenAccept(result -> SwingUtilities.invokeLater(() -> callback.accept(result)));
+    }
+
+    /**
+     * Reports whether the board is still solvable after a tool changed the cell at index, before being
+     * the board the tool was used on. Adding an obstacle never helps, so an unsolvable board stays
+     * unsolvable, and an optimal path that never touches the cell keeps its length. Removing a soldier
+     * never hurts: the old path without that soldier's moves still works, which gives an upper bound
+     * right away while the exact distance is searched for. Anything else falls back to a search.
+     * callback runs on the EDT, once with the final result and possibly once before with a bound.
+     */
+    public void toolUsed(long before, int index, Consumer<Hint> callback) {
+        if (closed) return;
+        long after = model.getState();
+        Hint previous = lookup(before);
+        int[] path = path(before);
+        Hint quick = null;
+
+        if (Board.code(after, index) == Board.OBSTACLE_CODE) {
+            if (previous != null && previous.getStatus() == Solution.Status.UNSOLVABLE) {
+                quick = new Hint(after, Move.NONE, -1, Solution.Status.UNSOLVABLE);
+                store(after, quick);
+            } else if (path != null && avoids(before, path, index)) {
+                long board = after;
+                for (int i = 0; i < path.length; i++) {
+                    store(board, new Hint(board, path[i], path.length - i, Solution.Status.SOLVED));
+                    board = Move.apply(board, path[i]);
+                }
+                quick = lookup(after);
+            }
+        } else if (path != null) {
+            int[] shorter = withoutSoldier(path, index);
+            if (shorter.length == 0) {
+                quick = new Hint(after, Move.NONE, 0, Solution.Status.SOLVED);
+                store(after, quick);
+            } else {
+                quick = new Hint(after, shorter[0], shorter.length, Solution.Status.SOLVED, false);
+            }
+        }
+
+        if (quick != null) {
+            callback.accept(quick);
+            if (quick.isExact()) return;
+        }
+        request(callback);
+    }
+
+    /**
+     * The cached hint for the current board, or null.
+     */
+    public Hint peek() {
+        return cached(model.getState(), model.getHash());
+    }
+
+    /**
+     * Stops the search and the worker thread, the service answers nothing after this (callbacks passed
+     * later are never run).
+     */
+    public void shutdown() {
+        closed = true;
+        if (pendingToken != null) pendingToken.cancel();
+        executor.shutdownNow();
+    }
+
+    private Hint cached(long board, long hash) {
+        synchronized (cache) {
+            Hint hint = cache.get(hash);
+            return hint != null && hint.getBoard() == board ? hint : null;
+        }
+    }
+
+    // the cached hint, or the one the level's database gives; null when neither knows the board.
+    // Runs on the EDT, so a database the worker has not mapped yet is not opened here
+    private Hint lookup(long board) {
+        Hint hint = cached(board, Zobrist.hash(board));
+        if (hint != null) return hint;
+
+        DistanceDatabase database = DistanceDatabase.ifOpen(model.getLevelFile());
+        if (database == null || !database.contains(board)) return null;
+        int distance = database.distance(board);
+        return distance == DistanceDatabase.UNSOLVABLE
+                ? new Hint(board, Move.NONE, -1, Solution.Status.UNSOLVABLE)
+                : new Hint(board, database.nextMove(board), distance, Solution.Status.SOLVED);
+    }
+
+    // the optimal moves from board to the goal as far as they are known, null when they are not
+    private int[] path(long board) {
+        Hint hint = lookup(board);
+        if (hint == null || hint.getStatus() != Solution.Status.SOLVED || !hint.isExact()) return null;
+
+        int[] moves = new int[hint.getDistance()];
+        for (int i = 0; i < moves.length; i++) {
+            if (hint == null || hint.getMove() == Move.NONE) return null;
+            moves[i] = hint.getMove();
+            board = Move.apply(board, moves[i]);
+            hint = lookup(board);
+        }
+        return moves;
+    }
+
+    private static boolean avoids(long board, int[] path, int index) {
+        for (int move : path) {
+            board = Move.apply(board, move);
+            if (Board.code(board, index) != Board.EMPTY) return false;
+        }
+        return true;
+    }
+
+    // the path with the moves of the soldier that stood on index left out
+    private static int[] withoutSoldier(int[] path, int index) {
+        int[] moves = new int[path.length];
+        int count = 0;
+        int soldier = index;
+        for (int move : path) {
+            if (Move.code(move) == Board.SOLDIER && Move.from(move) == soldier) {
+                soldier = Move.to(move);
+            } else {
+                moves[count++] = move;
+            }
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    private void store(long board, Hint hint) {
+        synchronized (cache) {
+            cache.put(Zobrist.hash(board), hint);
+        }
+    }
+
+    private Hint compute(long board, DistanceDatabase database, CancellationToken token) {
+        Hint hint = cached(board, Zobrist.hash(board));
+        if (hint != null) return hint;
+
+        if (Board.isWin(board)) {
+            hint = new Hint(board, Move.NONE, 0, Solution.Status.SOLVED);
+        } else if (database != null && database.contains(board)) {
+            int distance = database.distance(board);
+            hint = distance == DistanceDatabase.UNSOLVABLE
+                    ? new Hint(board, Move.NONE, -1, Solution.Status.UNSOLVABLE)
+                    : new Hint(board, database.nextMove(board), distance, Solution.Status.SOLVED);
+        } else {
+            Solution solution = solver.solve(board, LIMITS, token);
+            if (!solution.isSolved()) {
+                hint = new Hint(board, Move.NONE, -1, solution.getStatus());
+                // a stopped search says nothing about the board, try again next time
+                if (solution.getStatus() != Solution.Status.UNSOLVABLE) return hint;
+            } else {
+                // every board on an optimal path gets its hint for free
+                int length = solution.getLength();
+                for (int i = length - 1; i > 0; i--) {
+                    store(solution.getState(i), new Hint(solution.getState(i), solution.getMove(i), length - i,
+                            Solution.Status.SOLVED));
+                }
+                hint = new Hint(board, solution.getFirstMove(), length, Solution.Status.SOLVED);
+            }
+        }
+
+        store(board, hint);
+        return hint;
+    }
+}
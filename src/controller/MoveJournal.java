@@ -0,0 +1,360 @@
+package controller;
+
+import model.Board;
+import model.GameEngine;
+import model.GameRecorder;
+import model.Move;
+import model.MoveGenerator;
+import model.replay.Replay;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of a user's game in data/&lt;user&gt;/journal.bin, so a crash loses a fraction of a
+ * second of play instead of everything since the last save.
+ * A journal starts with a checkpoint (level, board, steps and game time), after that every move, undo,
+ * redo and tool use is one record of three or four bytes: what happened to which Move, and the game
+ * time since the previous record. The EDT only appends to a buffer; one background thread commits the
+ * buffers of all journals, so a burst of moves within COMMIT_DELAY_MILLIS shares one write and one fsync.
+ * Saving, loading and restarting write a new checkpoint, which replaces the file atomically and drops
+ * the records before it (the journal compacts itself when it grows past COMPACT_BYTES as well).
+ * recover reads the checkpoint and replays the records after it, a record cut off by a crash is ignored.
+ */
+
+public class MoveJournal implements GameRecorder {
+    public static final String FILE_NAME = "journal.bin";
+    static final int MAGIC = 0x4B4D4A31; // "KMJ1"
+    static final int VERSION = 1;
+    static final long COMMIT_DELAY_MILLIS = 50;
+    static final int COMPACT_BYTES = 64 * 1024;
+    private static final long SHUTDOWN_WAIT_SECONDS = 5;
+
+    // record types
+    static final int CHECKPOINT = 0;
+    static final int APPLY = 1;
+    static final int REVERT = 2;
+
+    private static ScheduledExecutorService committer;
+
+    private final GameEngine engine;
+    private final Path file;
+    // bytes not committed yet, guarded by this
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(pending);
+    private boolean fresh;
+    private boolean scheduled;
+    private boolean broken;
+    private int bytesSinceCheckpoint;
+    private int eventsSinceCheckpoint;
+    private long lastMillis;
+    // only used on the committer thread
+    private FileChannel channel;
+
+    /**
+     * A journal of what engine does from now on. The file is only replaced once the first event comes
+     * (or checkpoint is called), so opening a game and leaving it does not overwrite the journal of the
+     * game played before.
+     */
+    public MoveJournal(GameEngine engine, Path file) {
+        this.engine = engine;
+        this.file = file;
+        synchronized (this) {
+            writeCheckpoint();
+        }
+        engine.addRecorder(this);
+    }
+
+    public static Path fileFor(String user) {
+        return Path.of("data", user, FILE_NAME);
+    }
+
+    /**
+     * Starts the journal again from the engine's current state, replacing the file.
+     */
+    public synchronized void checkpoint() {
+        writeCheckpoint();
+        schedule();
+    }
+
+    /**
+     * Events journaled since the last checkpoint.
+     */
+    public synchronized int getEventsSinceCheckpoint() {
+        return eventsSinceCheckpoint;
+    }
+
+    /**
+     * Commits what was appended right away and waits for it, for tests and benchmarks; the game
+     * itself never waits on the journal.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            getCommitter().submit(this::commit).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops journaling, what was appended is still committed.
+     */
+    public void close() {
+        engine.removeRecorder(this);
+        synchronized (this) {
+            if (fresh && !scheduled) {
+                // nothing happened since the journal was opened, keep the file as it is
+                pending.reset();
+                fresh = false;
+            }
+        }
+        getCommitter().execute(() -> {
+            commit();
+            closeChannel();
+        });
+    }
+
+    @Override
+    public void moved(int move) {
+        append(APPLY, move);
+    }
+
+    @Override
+    public void undone() {
+        // the history already stepped back, the undone entry is the one redo would make again
+        append(REVERT, engine.getRedoMove());
+    }
+
+    @Override
+    public void redone() {
+        append(APPLY, engine.getLastMove());
+    }
+
+    @Override
+    public void toolUsed(int move) {
+        append(APPLY, move);
+    }
+
+    @Override
+    public void restarted() {
+        checkpoint();
+    }
+
+    private synchronized void append(int type, int move) {
+        if (broken || move == Move.NONE) return;
+        try {
+            long now = engine.getElapsedMillis();
+            int size = out.size();
+            out.writeByte(type);
+            out.writeShort(move);
+            Replay.writeVarint(out, Math.max(0, now - lastMillis));
+            lastMillis = now;
+            bytesSinceCheckpoint += out.size() - size;
+            eventsSinceCheckpoint++;
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not fail
+            throw new UncheckedIOException(e);
+        }
+        if (bytesSinceCheckpoint > COMPACT_BYTES) writeCheckpoint();
+        schedule();
+    }
+
+    // starts pending over with the file header and a checkpoint of the engine's state
+    private void writeCheckpoint() {
+        pending.reset();
+        try {
+            long now = Math.max(0, engine.getElapsedMillis());
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(CHECKPOINT);
+            out.writeUTF(engine.getModel().getLevel());
+            out.writeLong(engine.getModel().getState());
+            Replay.writeVarint(out, engine.getSteps());
+            Replay.writeVarint(out, now);
+            lastMillis = now;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fresh = true;
+        broken = false;
+        bytesSinceCheckpoint = 0;
+        eventsSinceCheckpoint = 0;
+    }
+
+    private void schedule() {
+        if (scheduled) return;
+        scheduled = true;
+        getCommitter().schedule(this::commit, COMMIT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // on the committer thread: writes what was appended since the last commit
+    private void commit() {
+        byte[] bytes;
+        boolean replace;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.size() == 0) return;
+            bytes = pending.toByteArray();
+            pending.reset();
+            replace = fresh;
+            fresh = false;
+        }
+        try {
+            if (replace) {
+                closeChannel();
+                SaveWriter.writeAtomically(file, bytes);
+                channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } else if (channel != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Move journal failed: " + file + ", Error: " + e.getMessage());
+            closeChannel();
+            // appending to a file that missed records would replay a wrong game, wait for the next checkpoint
+            synchronized (this) {
+                broken = !fresh;
+                if (broken) pending.reset();
+            }
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    private static synchronized ScheduledExecutorService getCommitter() {
+        if (committer == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "move-journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // commits still waiting for their delay run before the JVM exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "move-journal-shutdown"));
+            committer = executor;
+        }
+        return committer;
+    }
+
+    /**
+     * The game a journal ends with.
+     */
+    public static final class Recovery {
+        private final String level;
+        private final long board;
+        private final int steps;
+        private final long elapsedMillis;
+        private final int events;
+
+        Recovery(String level, long board, int steps, long elapsedMillis, int events) {
+            this.level = level;
+            this.board = board;
+            this.steps = steps;
+            this.elapsedMillis = elapsedMillis;
+            this.events = events;
+        }
+
+        public String getLevel() { return level; }
+
+        public long getBoard() { return board; }
+
+        public int getSteps() { return steps; }
+
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        /**
+         * Records replayed after the checkpoint.
+         */
+        public int getEvents() { return events; }
+    }
+
+    /**
+     * Replays the journal in file, null when there is none. Records after a cut off or impossible one
+     * are ignored, a journal without a readable checkpoint is an error.
+     */
+    public static Recovery recover(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a move journal");
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Unsupported move journal version " + version);
+            if (in.readUnsignedByte() != CHECKPOINT) throw new IOException("Corrupt move journal: no checkpoint");
+            String level = in.readUTF();
+            long board = in.readLong();
+            int steps = (int) Replay.readVarint(in);
+            long millis = Replay.readVarint(in);
+            if (!Board.isValid(board)) throw new IOException("Corrupt move journal: invalid board");
+
+            int events = 0;
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                int move;
+                long delta;
+                try {
+                    move = in.readUnsignedShort();
+                    delta = Replay.readVarint(in);
+                } catch (EOFException e) {
+                    // the last commit was cut off
+                    break;
+                }
+                long next;
+                if (type == APPLY && fits(board, move)) next = Move.apply(board, move);
+                else if (type == REVERT && fitsBack(board, move)) next = Move.revert(board, move);
+                else {
+                    System.err.println("Move journal: record " + events + " does not fit the board, ignoring the rest: " + file);
+                    break;
+                }
+                board = next;
+                if (!Move.isTool(move)) steps += type == APPLY ? 1 : -1;
+                millis += delta;
+                events++;
+            }
+            return new Recovery(level, board, steps, millis, events);
+        }
+    }
+
+    // whether move can be made on board
+    private static boolean fits(long board, int move) {
+        if (Move.from(move) >= Board.CELLS || Move.to(move) >= Board.CELLS) return false;
+        if (!Move.isTool(move)) {
+            return Board.isAnchor(board, Move.from(move)) && MoveGenerator.isLegal(board, move, MoveGenerator.Metric.STEP);
+        }
+        int cell = Board.code(board, Move.from(move));
+        if (Move.code(move) == Board.SOLDIER) return cell == Board.SOLDIER;
+        return Move.code(move) == Board.OBSTACLE_CODE && cell == Board.EMPTY;
+    }
+
+    // whether move can be taken back on board
+    private static boolean fitsBack(long board, int move) {
+        if (Move.from(move) >= Board.CELLS || Move.to(move) >= Board.CELLS) return false;
+        if (!Move.isTool(move)) {
+            int back = Move.inverse(move);
+            return Board.isAnchor(board, Move.from(back)) && MoveGenerator.isLegal(board, back, MoveGenerator.Metric.STEP);
+        }
+        int cell = Board.code(board, Move.from(move));
+        if (Move.code(move) == Board.SOLDIER) return cell == Board.EMPTY;
+        return Move.code(move) == Board.OBSTACLE_CODE && cell == Board.OBSTACLE_CODE;
+    }
+}
@@ -0,0 +1,151 @@
+package controller;
+
+import model.Board;
+import model.MapModel;
+import model.Move;
+import model.replay.Replay;
+import view.game.BoxComponent;
+import view.game.GamePanel;
+
+import javax.swing.*;
+
+/**
+ * Plays a Replay on a GamePanel the way the game showed it: moves slide with the same animation,
+ * tools remove soldiers and place obstacles, with the recorded pauses divided by the speed.
+ * Pauses longer than MAX_PAUSE_MILLIS (the player was thinking, or away) are cut to that.
+ * seek jumps to any position through the replay's keyframes and redraws the board.
+ * All methods must be called on the EDT.
+ */
+
+public class ReplayPlayer {
+    public static final long MAX_PAUSE_MILLIS = 2000;
+    private static final int ANIMATION_MILLIS = 200;
+
+    private final Replay replay;
+    private final GamePanel view;
+    private final MapModel model;
+    private final Timer timer;
+    private int position;
+    private double speed = 1;
+    // the timer is not running between firing and being scheduled again, so it cannot tell
+    private boolean playing;
+    private Runnable positionListener = () -> { };
+
+    public ReplayPlayer(Replay replay, GamePanel view, MapModel model) {
+        this.replay = replay;
+        this.view = view;
+        this.model = model;
+        this.timer = new Timer(0, e -> {
+            step();
+            if (position < replay.getEventCount()) {
+                schedule();
+            } else {
+                playing = false;
+                positionListener.run();
+            }
+        });
+        this.timer.setRepeats(false);
+        seek(0);
+    }
+
+    public void play() {
+        if (position >= replay.getEventCount()) seek(0);
+        playing = true;
+        schedule();
+    }
+
+    public void pause() {
+        playing = false;
+        timer.stop();
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Playback speed, 2 plays twice as fast as recorded.
+     */
+    public void setSpeed(double speed) {
+        if (speed <= 0) throw new IllegalArgumentException("Speed must be positive: " + speed);
+        this.speed = speed;
+    }
+
+    public double getSpeed() { return speed; }
+
+    public int getPosition() { return position; }
+
+    public Replay getReplay() { return replay; }
+
+    /**
+     * Called after every change of the position and when playback ends, e.g. to move a slider.
+     */
+    public void setPositionListener(Runnable positionListener) {
+        this.positionListener = positionListener;
+    }
+
+    /**
+     * Shows the board after the first position events, without animation.
+     */
+    public void seek(int position) {
+        position = Math.max(0, Math.min(position, replay.getEventCount()));
+        this.position = position;
+        model.setState(replay.getBoard(position));
+        view.syncFromModel();
+        view.setSteps(replay.getSteps(position));
+        positionListener.run();
+    }
+
+    /**
+     * Plays the next event with its animation, false at the end of the replay.
+     */
+    public boolean step() {
+        if (position >= replay.getEventCount()) return false;
+
+        int move = replay.getMove(position);
+        switch (replay.getKind(position)) {
+            case RESTART -> {
+                model.setState(replay.getRestart());
+                view.syncFromModel();
+            }
+            case UNDO -> {
+                model.setState(Move.revert(model.getState(), move));
+                if (Move.isTool(move)) view.syncFromModel();
+                else animate(Move.inverse(move));
+            }
+            default -> {
+                model.setState(Move.apply(model.getState(), move));
+                if (!Move.isTool(move)) animate(move);
+                else if (Move.code(move) == Board.SOLDIER) view.removeBoxAt(Move.fromRow(move), Move.fromCol(move));
+                else view.addObstacleAt(Move.fromRow(move), Move.fromCol(move));
+            }
+        }
+        position++;
+        view.setSteps(replay.getSteps(position));
+        positionListener.run();
+        return true;
+    }
+
+    private void animate(int move) {
+        BoxComponent box = view.getBoxAt(Move.fromRow(move), Move.fromCol(move));
+        if (box == null) return;
+        // the next event may come before the animation ends and has to find the box
+        box.setRow(Move.toRow(move));
+        box.setCol(Move.toCol(move));
+        view.animateBox(box, Move.fromRow(move), Move.fromCol(move), Move.toRow(move), Move.toCol(move),
+                (int) Math.min(ANIMATION_MILLIS, pause(position + 1) * 4 / 5));
+    }
+
+    private void schedule() {
+        timer.setInitialDelay((int) pause(position));
+        timer.restart();
+    }
+
+    // millis to wait before the event, already scaled by the speed
+    private long pause(int event) {
+        if (event >= replay.getEventCount()) return ANIMATION_MILLIS;
+        long previous = event == 0 ? 0 : replay.getTime(event - 1);
+        long pause = Math.min(MAX_PAUSE_MILLIS, replay.getTime(event) - previous);
+        return (long) (pause / speed);
+    }
+}
@@ -0,0 +1,367 @@
+package controller;
+
+import model.Board;
+import model.GameEngine;
+import model.MapModel;
+import model.Move;
+import model.MoveHistory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Named and rotating save slots of one user in data/&lt;user&gt;/slots/. A slot file keeps the board the
+ * game's undo history starts on and the history itself as deflated moves, so a slot costs a few dozen
+ * bytes plus about a byte per move, and loading it gets the history back for undo. Autosaves rotate
+ * through AUTO_SLOTS slots, a named slot is replaced when saved again under its name.
+ * index.txt lists every slot with its level, steps and time (tab separated), so the slot picker reads
+ * one small file; a missing index is rebuilt from the slot headers. Files go through the SaveWriter.
+ */
+
+public class SaveSlots {
+    public static final String DIRECTORY_NAME = "slots";
+    public static final String INDEX_FILE = "index.txt";
+    public static final String EXTENSION = ".ksl";
+    public static final int AUTO_SLOTS = 5;
+    static final int MAGIC = 0x4B534C31; // "KSL1"
+    static final int VERSION = 1;
+
+    private final Path dir;
+    // read on first use, guarded by this
+    private List<Slot> slots;
+
+    /**
+     * What the index says about one slot.
+     */
+    public static final class Slot {
+        private final String id;
+        private final String name;
+        private final boolean auto;
+        private final String level;
+        private final int steps;
+        private final long elapsedMillis;
+        private final long savedAt;
+
+        Slot(String id, String name, boolean auto, String level, int steps, long elapsedMillis, long savedAt) {
+            this.id = id;
+            this.name = name;
+            this.auto = auto;
+            this.level = level;
+            this.steps = steps;
+            this.elapsedMillis = elapsedMillis;
+            this.savedAt = savedAt;
+        }
+
+        public String getId() { return id; }
+
+        public String getName() { return name; }
+
+        public boolean isAuto() { return auto; }
+
+        public String getLevel() { return level; }
+
+        public int getSteps() { return steps; }
+
+        public long getTimeLeft() {
+            return Math.max(0, (GameEngine.GAME_DURATION_MILLIS - elapsedMillis) / 1000);
+        }
+
+        public long getSavedAt() { return savedAt; }
+    }
+
+    /**
+     * A game as a slot keeps it: the level, its first board, the board the history starts on, the moves
+     * and tool uses of the history and where they lead.
+     */
+    public static final class Snapshot {
+        private final String level;
+        private final long initialBoard;
+        private final long baseBoard;
+        private final long board;
+        private final int steps;
+        private final long elapsedMillis;
+        private final int[] moves;
+
+        Snapshot(String level, long initialBoard, long baseBoard, long board, int steps, long elapsedMillis, int[] moves) {
+            this.level = level;
+            this.initialBoard = initialBoard;
+            this.baseBoard = baseBoard;
+            this.board = board;
+            this.steps = steps;
+            this.elapsedMillis = elapsedMillis;
+            this.moves = moves;
+        }
+
+        public String getLevel() { return level; }
+
+        public long getInitialBoard() { return initialBoard; }
+
+        public long getBaseBoard() { return baseBoard; }
+
+        public long getBoard() { return board; }
+
+        public int getSteps() { return steps; }
+
+        /**
+         * Steps before the first move of the history.
+         */
+        public int getBaseSteps() {
+            int base = steps;
+            for (int move : moves) if (!Move.isTool(move)) base--;
+            return base;
+        }
+
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public int[] getMoves() { return moves.clone(); }
+    }
+
+    public SaveSlots(String user) {
+        this(Path.of("data", user, DIRECTORY_NAME));
+    }
+
+    public SaveSlots(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Takes the game engine plays, cheap enough for the EDT: the history is copied and walked back once.
+     */
+    public static Snapshot capture(GameEngine engine) {
+        MapModel model = engine.getModel();
+        MoveHistory history = engine.getHistory();
+        int[] moves = new int[history.size()];
+        for (int i = 0; i < moves.length; i++) moves[i] = history.get(i);
+        long base = model.getState();
+        for (int i = moves.length - 1; i >= 0; i--) base = Move.revert(base, moves[i]);
+        return new Snapshot(model.getLevel(), model.getInitialState(), base, model.getState(),
+                engine.getSteps(), Math.max(0, engine.getElapsedMillis()), moves);
+    }
+
+    /**
+     * Makes move or tool use on engine, false when it does not fit the board.
+     */
+    public static boolean play(GameEngine engine, int move) {
+        int row = Move.fromRow(move);
+        int col = Move.fromCol(move);
+        if (!Move.isTool(move)) return engine.move(row, col, Move.direction(move)) != Move.NONE;
+        if (Move.code(move) == Board.SOLDIER) return engine.hammer(row, col);
+        return Move.code(move) == Board.OBSTACLE_CODE && engine.placeObstacle(row, col);
+    }
+
+    /**
+     * The slots, newest first.
+     */
+    public synchronized List<Slot> list() {
+        if (slots == null) slots = readIndex();
+        List<Slot> sorted = new ArrayList<>(slots);
+        sorted.sort(Comparator.comparingLong(Slot::getSavedAt).reversed());
+        return sorted;
+    }
+
+    /**
+     * Saves snapshot in the slot called name, or in the oldest autosave slot when auto is set.
+     * The files are written in the background, callback (may be null) gets null or the error on the EDT.
+     */
+    public synchronized Slot save(String name, boolean auto, Snapshot snapshot, Consumer<IOException> callback) {
+        if (slots == null) slots = readIndex();
+        String id = auto ? autoId() : namedId(name);
+        Slot slot = new Slot(id, clean(name), auto, snapshot.getLevel(), snapshot.getSteps(),
+                snapshot.getElapsedMillis(), System.currentTimeMillis());
+        slots.removeIf(s -> s.getId().equals(id));
+        slots.add(slot);
+
+        // the index is written after the slot, so it never lists a slot that is not on disk
+        SaveWriter.getDefault().write(dir.resolve(id + EXTENSION), () -> encode(slot, snapshot), error -> {
+            if (error == null) writeIndex();
+            if (callback != null) callback.accept(error);
+        });
+        return slot;
+    }
+
+    /**
+     * Reads the slot and checks that its moves are legal from its base board and lead to its board.
+     */
+    public Snapshot load(Slot slot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(slot.getId() + EXTENSION))))) {
+            checkMagic(in);
+            in.readUTF();
+            in.readBoolean();
+            in.readLong();
+            String level = in.readUTF();
+            long initial = in.readLong();
+            long base = in.readLong();
+            long board = in.readLong();
+            int steps = in.readInt();
+            long elapsed = in.readLong();
+            int count = in.readInt();
+            if (count < 0 || count > MoveHistory.DEFAULT_LIMIT) throw new IOException("Corrupt save slot: " + count + " moves");
+            if (!Board.isValid(initial) || !Board.isValid(base)) throw new IOException("Corrupt save slot: invalid board");
+
+            int[] moves = new int[count];
+            DataInputStream deltas = new DataInputStream(new InflaterInputStream(in));
+            for (int i = 0; i < count; i++) moves[i] = deltas.readUnsignedShort();
+
+            GameEngine engine = new GameEngine(new MapModel(base, level), () -> 0L);
+            for (int i = 0; i < count; i++) {
+                if (!play(engine, moves[i])) throw new IOException("Corrupt save slot: move " + i + " breaks the rules");
+            }
+            if (engine.getModel().getState() != board) throw new IOException("Corrupt save slot: moves do not lead to the saved board");
+            return new Snapshot(level, initial, base, board, steps, elapsed, moves);
+        }
+    }
+
+    /**
+     * Removes the slot from the index and deletes its file in the background, after any save of that
+     * slot still queued. callback (may be null) gets null or the error on the EDT.
+     */
+    public synchronized void delete(Slot slot, Consumer<IOException> callback) {
+        if (slots == null) slots = readIndex();
+        slots.removeIf(s -> s.getId().equals(slot.getId()));
+        writeIndex();
+        SaveWriter.getDefault().delete(dir.resolve(slot.getId() + EXTENSION), callback);
+    }
+
+    // the autosave slot to write: an unused one, else the one saved longest ago
+    private String autoId() {
+        Slot oldest = null;
+        for (int k = 1; k <= AUTO_SLOTS; k++) {
+            String id = "auto-" + k;
+            Slot used = find(id);
+            if (used == null) return id;
+            if (oldest == null || used.getSavedAt() < oldest.getSavedAt()) oldest = used;
+        }
+        return oldest.getId();
+    }
+
+    private String namedId(String name) {
+        int next = 1;
+        for (Slot slot : slots) {
+            if (!slot.isAuto() && slot.getName().equals(clean(name))) return slot.getId();
+            if (slot.getId().startsWith("slot-")) {
+                try {
+                    next = Math.max(next, Integer.parseInt(slot.getId().substring(5)) + 1);
+                } catch (NumberFormatException ignored) {
+                    // not an id this class made, it cannot clash with slot-N
+                }
+            }
+        }
+        return "slot-" + next;
+    }
+
+    private Slot find(String id) {
+        for (Slot slot : slots) if (slot.getId().equals(id)) return slot;
+        return null;
+    }
+
+    private void writeIndex() {
+        SaveWriter.getDefault().write(dir.resolve(INDEX_FILE), this::formatIndex, error -> {
+            if (error != null) System.err.println("Save slot index failed: " + dir + ", Error: " + error.getMessage());
+        });
+    }
+
+    private synchronized byte[] formatIndex() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("#id\tname\tauto\tlevel\tsteps\telapsedMillis\tsavedAt\n");
+        for (Slot slot : slots) {
+            sb.append(slot.getId()).append('\t').append(slot.getName()).append('\t').append(slot.isAuto()).append('\t')
+                    .append(slot.getLevel()).append('\t').append(slot.getSteps()).append('\t')
+                    .append(slot.elapsedMillis).append('\t').append(slot.getSavedAt()).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private List<Slot> readIndex() {
+        List<Slot> read = new ArrayList<>();
+        Path index = dir.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            try {
+                for (String line : Files.readAllLines(index)) {
+                    if (line.startsWith("#") || line.isBlank()) continue;
+                    String[] fields = line.split("\t", -1);
+                    if (fields.length != 7 || !Files.exists(dir.resolve(fields[0] + EXTENSION))) continue;
+                    read.add(new Slot(fields[0], fields[1], Boolean.parseBoolean(fields[2]), fields[3],
+                            Integer.parseInt(fields[4]), Long.parseLong(fields[5]), Long.parseLong(fields[6])));
+                }
+                return read;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Save slot index rebuilt: " + index + ", Error: " + e.getMessage());
+                read.clear();
+            }
+        }
+        if (!Files.isDirectory(dir)) return read;
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(p -> p.getFileName().toString().endsWith(EXTENSION)).toList()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    String id = file.getFileName().toString();
+                    read.add(readHeader(in, id.substring(0, id.length() - EXTENSION.length())));
+                } catch (IOException e) {
+                    System.err.println("Save slot skipped: " + file + ", Error: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Save slots unreadable: " + dir + ", Error: " + e.getMessage());
+        }
+        return read;
+    }
+
+    static byte[] encode(Slot slot, Snapshot snapshot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + snapshot.moves.length);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(slot.getName());
+            out.writeBoolean(slot.isAuto());
+            out.writeLong(slot.getSavedAt());
+            out.writeUTF(snapshot.getLevel());
+            out.writeLong(snapshot.getInitialBoard());
+            out.writeLong(snapshot.getBaseBoard());
+            out.writeLong(snapshot.getBoard());
+            out.writeInt(snapshot.getSteps());
+            out.writeLong(snapshot.getElapsedMillis());
+            out.writeInt(snapshot.moves.length);
+            DataOutputStream deltas = new DataOutputStream(new DeflaterOutputStream(out));
+            for (int move : snapshot.moves) deltas.writeShort(move);
+            deltas.close();
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // the slot as the index would list it, from the start of its file
+    private static Slot readHeader(DataInputStream in, String id) throws IOException {
+        checkMagic(in);
+        String name = in.readUTF();
+        boolean auto = in.readBoolean();
+        long savedAt = in.readLong();
+        String level = in.readUTF();
+        in.readLong();
+        in.readLong();
+        in.readLong();
+        int steps = in.readInt();
+        long elapsed = in.readLong();
+        return new Slot(id, name, auto, level, steps, elapsed, savedAt);
+    }
+
+    private static void checkMagic(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a save slot");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported save slot version " + version);
+    }
+
+    private static String clean(String name) {
+        return name.replaceAll("[\\t\\r\\n]", " ").strip();
+    }
+}
@@ -0,0 +1,169 @@
+package controller;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Writes save files on one background thread so the EDT never waits for the disk.
+ * Callers hand over a snapshot that is cheap to take (the content is built on the writer thread).
+ * Writes to the same file coalesce: while one is queued, newer writes only replace its content, so
+ * an autosave burst costs one write. Every write goes to a temp file next to the target, is forced to
+ * disk and then moved over the target atomically, so a crash leaves either the old or the new file.
+ * Deleting a file is queued the same way, so it cannot be undone by a write to that file queued before.
+ * Queued writes are finished before the JVM exits (System.exit runs the shutdown hook).
+ */
+
+public class SaveWriter {
+    private static final long SHUTDOWN_WAIT_SECONDS = 5;
+    private static SaveWriter defaultWriter;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "save-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // queued writes by file, guarded by itself
+    private final Map<Path, Pending> pending = new HashMap<>();
+
+    private static class Pending {
+        // null deletes the file
+        private Supplier<byte[]> content;
+        private final List<Consumer<IOException>> callbacks = new ArrayList<>();
+    }
+
+    /**
+     * The writer the game uses, its shutdown hook waits for queued saves on exit.
+     */
+    public static synchronized SaveWriter getDefault() {
+        if (defaultWriter == null) {
+            SaveWriter writer = new SaveWriter();
+            Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "save-writer-shutdown"));
+            defaultWriter = writer;
+        }
+        return defaultWriter;
+    }
+
+    /**
+     * Queues content for file. callback (may be null) runs on the EDT once the write this request ended up
+     * in is done, with null on success or the error.
+     */
+    public void write(Path file, Supplier<byte[]> content, Consumer<IOException> callback) {
+        queue(file, content, callback);
+    }
+
+    /**
+     * Queues deleting file, in place of any write to it still queued. callback as for write.
+     */
+    public void delete(Path file, Consumer<IOException> callback) {
+        queue(file, null, callback);
+    }
+
+    private void queue(Path file, Supplier<byte[]> content, Consumer<IOException> callback) {
+        synchronized (pending) {
+            Pending queued = pending.get(file);
+            if (queued == null) {
+                queued = new Pending();
+                pending.put(file, queued);
+                executor.execute(() -> flushFile(file));
+            }
+            queued.content = content;
+            if (callback != null) queued.callbacks.add(callback);
+        }
+    }
+
+    /**
+     * Waits until everything queued so far is written.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Writes what is queued and stops the thread, waiting at most a few seconds.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Save writer: queued saves did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushFile(Path file) {
+        Pending queued;
+        synchronized (pending) {
+            queued = pending.remove(file);
+        }
+        if (queued == null) return;
+
+        IOException error = null;
+        try {
+            if (queued.content == null) Files.deleteIfExists(file);
+            else writeAtomically(file, queued.content.get());
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        }
+
+        IOException result = error;
+        for (Consumer<IOException> callback : queued.callbacks) {
+            SwingUtilities.invokeLater(() -> callback.accept(result));
+        }
+    }
+
+    /**
+     * Replaces file with content through a forced temp file and an atomic move, on the calling thread.
+     */
+    public static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        forceDirectory(dir);
+    }
+
+    // makes the rename itself durable where the platform allows opening a directory
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) {
+        }
+    }
+}
@@ -62,6 +62,15 @@ public class User implements Serializable {
         return bestTime;
     }
 
+    public int getHighestLevel() {
+        return highestLevel;
+    }
+
+    // for UserStore, which keeps the progress outside of this object
+    void setHighestLevel(int highestLevel) {
+        this.highestLevel = highestLevel;
+    }
+
     public String getPassword() {
         return password;
     }
@@ -1,12 +1,13 @@
 package controller;
 
+import model.Board;
+import model.GameEngine;
 import model.MapModel;
 import view.game.GamePanel;
 
-import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -18,51 +19,123 @@ public class UserDataController {
     private final MapModel model;
     private final User currentUser;
     private Timer autoSaveTimer;
+    private final SaveSlots slots;
 
     public UserDataController(GameController controller, GamePanel view, MapModel model, User user) {
         this.controller = controller;
         this.view = view;
         this.model = model;
         this.currentUser = user;
+        this.slots = user.isGuest() ? null : new SaveSlots(user.getUsername());
         this.view.setUserData(this);
     }
 
-    public void saveGame(boolean isAuto) {
-        if (currentUser.isGuest()) {
+    /**
+     * The save slots of the user, null for guests.
+     */
+    public SaveSlots getSlots() {
+        return slots;
+    }
+
+    /**
+     * Saves the game in the slot called name, or in the next autosave slot when isAuto is set.
+     */
+    public void saveSlot(String name, boolean isAuto) {
+        if (slots == null) {
             if (!isAuto) view.showErrorMessage("Guest can not save game!");
             return;
         }
+        slots.save(name, isAuto, SaveSlots.capture(controller.getEngine()), error -> {
+            if (error != null) {
+                if (isAuto) System.err.println("Auto-save slot failed: " + name + ", Error: " + error.getMessage());
+                else view.showErrorMessage("Game saved failed: " + error.getMessage());
+            } else if (!isAuto) {
+                view.showInfoMessage("Game saved to slot " + name + "!");
+            }
+        });
+    }
 
-        int[][] saveMap = model.getMatrix();
-        List<String> gameData = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-
-        gameData.add(model.getLevel());
-        gameData.add(String.valueOf(view.getSteps()));
-        gameData.add(String.valueOf(controller.getActualTime()));
-        gameData.add(String.valueOf(currentUser.getBestSteps()));
-        gameData.add(String.valueOf(currentUser.getBestTime()));
+    /**
+     * Goes on with a game read by SaveSlots.load. Its moves are made again from the slot's base board,
+     * so they can be undone and the replay of this game has them.
+     */
+    public void loadSlot(String name, SaveSlots.Snapshot snapshot) {
+        long timeLeft = (GameEngine.GAME_DURATION_MILLIS - snapshot.getElapsedMillis()) / 1000;
+        if (timeLeft < 0 || snapshot.getBaseSteps() < 0) {
+            view.showErrorMessage("Save slot is corrupted!");
+            return;
+        }
 
-        for (int[] line : saveMap) {
-            sb.setLength(0);
-            for (int value : line) {
-                sb.append(value).append(" ");
+        GameEngine engine = controller.getEngine();
+        model.setLevel(snapshot.getLevel());
+        model.setState(snapshot.getBaseBoard());
+        engine.clearHistory();
+        engine.setSteps(snapshot.getBaseSteps());
+        controller.startGameTimer(timeLeft);
+        controller.startRecording();
+        for (int move : snapshot.getMoves()) {
+            if (!SaveSlots.play(engine, move)) {
+                view.showErrorMessage("Save slot is corrupted!");
+                break;
             }
-            gameData.add(sb.toString().trim());
         }
 
-        String filePath = "data/" + currentUser.getUsername();
-        File dir = new File(filePath);
-        dir.mkdirs();
+        view.setSteps(engine.getSteps());
+        controller.boardChanged();
+        view.rebuildGameView(model.getMatrix());
+        view.setTimeLabelString("Time Left: " + formatTime(timeLeft));
+        view.showInfoMessage("Loaded slot: " + name);
+        MoveJournal journal = controller.getJournal();
+        if (journal != null) journal.checkpoint();
+    }
 
-        try {
-            Files.write(Path.of(filePath + "/data.txt"), gameData);
-            if (!isAuto) {
-                view.showInfoMessage("Game saved successfully!");
+    public void saveGame(boolean isAuto) {
+        if (currentUser.isGuest()) {
+            if (!isAuto) view.showErrorMessage("Guest can not save game!");
+            return;
+        }
+
+        // only the values are taken here, the writer thread formats and writes them
+        String level = model.getLevel();
+        long board = model.getState();
+        int steps = view.getSteps();
+        long actualTime = controller.getActualTime();
+        int bestSteps = currentUser.getBestSteps();
+        long bestTime = currentUser.getBestTime();
+
+        // the snapshot covers everything journaled so far, the journal starts over from it
+        MoveJournal journal = controller.getJournal();
+        if (journal != null) journal.checkpoint();
+
+        Path file = Path.of("data", currentUser.getUsername(), "data.txt");
+        SaveWriter.getDefault().write(file,
+                () -> formatSave(level, board, steps, actualTime, bestSteps, bestTime),
+                error -> {
+                    if (error != null) {
+                        if (isAuto) System.err.println("Auto-save failed: " + file + ", Error: " + error.getMessage());
+                        else view.showErrorMessage("Game saved failed: " + error.getMessage());
+                    } else if (!isAuto) {
+                        view.showInfoMessage("Game saved successfully!");
+                    }
+                });
+    }
+
+    private static byte[] formatSave(String level, long board, int steps, long actualTime, int bestSteps, long bestTime) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(level).append('\n');
+        sb.append(steps).append('\n');
+        sb.append(actualTime).append('\n');
+        sb.append(bestSteps).append('\n');
+        sb.append(bestTime).append('\n');
+
+        for (int[] line : Board.toMatrix(board)) {
+            for (int i = 0; i < line.length; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(line[i]);
             }
-        } catch (Exception e) {
-            view.showErrorMessage("Game saved failed: " + e.getMessage());
+            sb.append('\n');
         }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     public void loadGame() {
@@ -81,15 +154,6 @@ public class UserDataController {
             int savedStepCount = Integer.parseInt(lines.get(1));
             long savedTimeLeft = 300 - Long.parseLong(lines.get(2));
 
-            if ((!Objects.equals(level, "Easy") && !Objects.equals(level, "Medium") && !Objects.equals(level, "Hard")) || savedTimeLeft < 0) {
-                view.showErrorMessage("Save file is corrupted!");
-                return;
-            }
-
-            model.setLevel(level);
-            view.setSteps(savedStepCount);
-            view.setTimeLabelString("Time Left: " + formatTime(savedTimeLeft));
-
             int[][] loadedMap = new int[4][5];
             for (int i = 0; i < 4; i++)
             {
@@ -105,22 +169,65 @@ public class UserDataController {
                 }
             }
 
+            // the journal goes on from the last snapshot up to the last move before the game was left
+            MoveJournal.Recovery recovered = recoverJournal();
+            if (recovered != null) {
+                level = recovered.getLevel();
+                savedStepCount = recovered.getSteps();
+                savedTimeLeft = 300 - recovered.getElapsedMillis() / 1000;
+                loadedMap = Board.toMatrix(recovered.getBoard());
+                System.out.println("Recovered " + recovered.getEvents() + " journaled moves");
+            }
+
+            if ((!Objects.equals(level, "Easy") && !Objects.equals(level, "Medium") && !Objects.equals(level, "Hard")) || savedTimeLeft < 0) {
+                view.showErrorMessage("Save file is corrupted!");
+                return;
+            }
+
+            model.setLevel(level);
+            view.setSteps(savedStepCount);
+            controller.getEngine().setSteps(savedStepCount);
+            view.setTimeLabelString("Time Left: " + formatTime(savedTimeLeft));
+
             model.setMatrix(loadedMap);
+            controller.boardChanged();
             view.rebuildGameView(loadedMap);
             view.setTimeLabelString("Time Left: " + formatTime(savedTimeLeft));
             view.showInfoMessage("Loaded level: " + level);
 
+            // moves made before the load do not fit the loaded board, undo starts over from it
+            controller.getEngine().clearHistory();
             controller.startGameTimer(savedTimeLeft);
+            // the replay goes on from the loaded board
+            controller.startRecording();
+            MoveJournal journal = controller.getJournal();
+            if (journal != null) journal.checkpoint();
 
         } catch (Exception e) {
             view.showErrorMessage("Load failed: " + e.getMessage());
         }
     }
 
+    private MoveJournal.Recovery recoverJournal() {
+        try {
+            return MoveJournal.recover(MoveJournal.fileFor(currentUser.getUsername()));
+        } catch (Exception e) {
+            System.err.println("Move journal ignored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot and the next autosave slot every intervalMinutes when something was played since the last one,
+     * the moves in between are kept by the journal.
+     */
     public void setupAutoSave(int intervalMinutes) {
         autoSaveTimer = new Timer(intervalMinutes * 60 * 1000, e -> {
+            MoveJournal journal = controller.getJournal();
+            if (journal != null && journal.getEventsSinceCheckpoint() == 0) return;
             if (currentUser != null && !currentUser.isGuest()) {
                 saveGame(true);
+                saveSlot("Autosave " + model.getLevel(), true);
                 System.out.println("Auto-save successfully！Time: " + new Date());
             }
         });
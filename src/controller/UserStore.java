@@ -0,0 +1,321 @@
+package controller;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * All users in one paged file, userdata/users.db: a header page and then one SLOT_SIZE page per user
+ * holding a versioned binary record (name, password, progress and best scores, with a CRC). Opening
+ * the store reads every page once into a name-to-page index, after that userExists is a map lookup and
+ * loading or saving a user reads or writes one page.
+ * A page is first appended to the write-ahead log users.wal and forced, then written in place; opening
+ * replays the log, so a page torn by a crash is written again. The log is emptied once CHECKPOINT_RECORDS
+ * pages were written and the pages are forced.
+ * The first open moves the users of the old one-file-per-user format (userdata/&lt;name&gt;.dat) into the
+ * store and the old files to userdata/migrated/. A store is thread-safe.
+ */
+
+public class UserStore implements Closeable {
+    public static final Path DIRECTORY = Path.of("userdata");
+    public static final String DATA_FILE = "users.db";
+    public static final String LOG_FILE = "users.wal";
+    static final int MAGIC = 0x4B555331; // "KUS1"
+    static final int VERSION = 1;
+    static final int SLOT_SIZE = 256;
+    // longest name or password in UTF-8 bytes, so that a record fits its page
+    public static final int MAX_FIELD_BYTES = 100;
+    static final int CHECKPOINT_RECORDS = 256;
+
+    // record versions, 0 is a free page
+    static final int FREE = 0;
+    static final int RECORD_V1 = 1;
+    private static final int GUEST_FLAG = 1;
+
+    private static UserStore defaultStore;
+
+    private final Path dir;
+    private final FileChannel data;
+    private final FileChannel log;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final ArrayDeque<Integer> free = new ArrayDeque<>();
+    private int slots;
+    private int logRecords;
+
+    /**
+     * Opens or creates the store in dir, replaying its log and migrating old user files.
+     */
+    public UserStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        data = FileChannel.open(dir.resolve(DATA_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (data.size() == 0) writeHeader();
+            else readHeader();
+            replayLog();
+            loadIndex();
+            migrate();
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The store in userdata/ the game uses, opened on first use.
+     */
+    public static synchronized UserStore getDefault() throws IOException {
+        if (defaultStore == null) defaultStore = new UserStore(DIRECTORY);
+        return defaultStore;
+    }
+
+    public synchronized boolean exists(String name) {
+        return index.containsKey(name);
+    }
+
+    /**
+     * The user called name, null when there is none.
+     */
+    public synchronized User load(String name) throws IOException {
+        Integer slot = index.get(name);
+        if (slot == null) return null;
+        ByteBuffer page = ByteBuffer.allocate(SLOT_SIZE);
+        readFully(data, page, offset(slot));
+        User user = decode(page);
+        if (user == null) throw new IOException("Corrupt user store: page " + slot + " of " + name);
+        return user;
+    }
+
+    /**
+     * Adds or updates user. Fails when the name or password is longer than MAX_FIELD_BYTES.
+     */
+    public synchronized void save(User user) throws IOException {
+        ByteBuffer page = encode(user);
+        Integer slot = index.get(user.getUsername());
+        boolean added = slot == null;
+        if (added) slot = free.isEmpty() ? slots : free.peek();
+        write(slot, page);
+        if (added) {
+            if (slot == slots) slots++;
+            else free.poll();
+            index.put(user.getUsername(), slot);
+        }
+    }
+
+    /**
+     * Removes the user called name, false when there is none.
+     */
+    public synchronized boolean delete(String name) throws IOException {
+        Integer slot = index.get(name);
+        if (slot == null) return false;
+        write(slot, freePage());
+        index.remove(name);
+        free.push(slot);
+        return true;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Forces the pages and empties the log.
+     */
+    public synchronized void checkpoint() throws IOException {
+        data.force(false);
+        log.truncate(0);
+        log.force(false);
+        logRecords = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            data.close();
+            log.close();
+        }
+    }
+
+    // through the log first, then in place
+    private void write(int slot, ByteBuffer page) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(4 + SLOT_SIZE);
+        record.putInt(slot).put(page.duplicate().rewind()).flip();
+        long end = log.size();
+        while (record.hasRemaining()) end += log.write(record, end);
+        log.force(false);
+
+        page.rewind();
+        long position = offset(slot);
+        while (page.hasRemaining()) position += data.write(page, position);
+        if (++logRecords >= CHECKPOINT_RECORDS) checkpoint();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SLOT_SIZE);
+        header.putInt(MAGIC).put((byte) VERSION).putShort((short) SLOT_SIZE).rewind();
+        data.write(header, 0);
+        data.force(false);
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(7);
+        readFully(data, header, 0);
+        if (header.getInt() != MAGIC) throw new IOException("Not a user store: " + dir.resolve(DATA_FILE));
+        int version = header.get();
+        if (version != VERSION) throw new IOException("Unsupported user store version " + version);
+        if (header.getShort() != SLOT_SIZE) throw new IOException("Corrupt user store: page size");
+    }
+
+    // writes every complete logged page again, a record cut off by a crash was never written in place
+    private void replayLog() throws IOException {
+        long size = log.size();
+        int replayed = 0;
+        ByteBuffer record = ByteBuffer.allocate(4 + SLOT_SIZE);
+        for (long position = 0; position + record.capacity() <= size; position += record.capacity()) {
+            record.clear();
+            readFully(log, record, position);
+            int slot = record.getInt();
+            ByteBuffer page = record.slice();
+            if (slot < 0 || !isIntact(page)) break;
+            long at = offset(slot);
+            while (page.hasRemaining()) at += data.write(page, at);
+            replayed++;
+        }
+        if (replayed > 0) System.out.println("User store: replayed " + replayed + " logged pages");
+        checkpoint();
+    }
+
+    private void loadIndex() throws IOException {
+        slots = (int) ((data.size() - SLOT_SIZE) / SLOT_SIZE);
+        ByteBuffer pages = ByteBuffer.allocate(SLOT_SIZE * 64);
+        for (int first = 0; first < slots; first += 64) {
+            int count = Math.min(64, slots - first);
+            pages.clear().limit(count * SLOT_SIZE);
+            readFully(data, pages, offset(first));
+            for (int i = 0; i < count; i++) {
+                ByteBuffer page = pages.slice(i * SLOT_SIZE, SLOT_SIZE);
+                User user = decode(page);
+                if (user == null) {
+                    if (page.get(0) != FREE) System.err.println("User store: ignoring corrupt page " + (first + i));
+                    free.add(first + i);
+                } else {
+                    index.put(user.getUsername(), first + i);
+                }
+            }
+        }
+    }
+
+    private void migrate() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith(".dat")).sorted().toList();
+        }
+        if (files.isEmpty()) return;
+
+        Path migrated = dir.resolve("migrated");
+        Files.createDirectories(migrated);
+        int count = 0;
+        for (Path file : files) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                User user = (User) in.readObject();
+                if (!exists(user.getUsername())) {
+                    save(user);
+                    count++;
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                System.err.println("User migration failed: " + file + ", Error: " + e.getMessage());
+                continue;
+            }
+            Files.move(file, migrated.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        checkpoint();
+        if (count > 0) System.out.println("User store: migrated " + count + " users to " + dir.resolve(DATA_FILE));
+    }
+
+    static ByteBuffer encode(User user) throws IOException {
+        byte[] name = user.getUsername().getBytes(StandardCharsets.UTF_8);
+        byte[] password = user.getPassword() == null ? new byte[0] : user.getPassword().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_FIELD_BYTES || password.length > MAX_FIELD_BYTES) {
+            throw new IOException("User name or password longer than " + MAX_FIELD_BYTES + " bytes: " + user.getUsername());
+        }
+
+        ByteBuffer page = ByteBuffer.allocate(SLOT_SIZE);
+        page.put((byte) RECORD_V1);
+        page.put((byte) (user.isGuest() ? GUEST_FLAG : 0));
+        page.putShort((short) name.length).put(name);
+        page.putShort((short) password.length).put(password);
+        page.putInt(user.getHighestLevel());
+        page.putInt(user.getBestSteps());
+        page.putLong(user.getBestTime());
+        page.putInt(SLOT_SIZE - 4, crc(page));
+        return page.rewind();
+    }
+
+    // the user in page, null for a free or corrupt page
+    static User decode(ByteBuffer page) {
+        if (page.get(0) != RECORD_V1 || !isIntact(page)) return null;
+        ByteBuffer in = page.duplicate().position(1);
+        int flags = in.get();
+        String name = readString(in);
+        String password = readString(in);
+        if (name == null || password == null) return null;
+
+        User user = (flags & GUEST_FLAG) != 0 ? new User(name) : new User(name, password);
+        user.setHighestLevel(in.getInt());
+        user.updateBestSteps(in.getInt());
+        user.updateBestTime(in.getLong());
+        return user;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0 || length > MAX_FIELD_BYTES) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer freePage() {
+        ByteBuffer page = ByteBuffer.allocate(SLOT_SIZE);
+        page.putInt(SLOT_SIZE - 4, crc(page));
+        return page;
+    }
+
+    private static boolean isIntact(ByteBuffer page) {
+        return page.getInt(SLOT_SIZE - 4) == crc(page);
+    }
+
+    private static int crc(ByteBuffer page) {
+        CRC32 crc = new CRC32();
+        crc.update(page.duplicate().position(0).limit(SLOT_SIZE - 4));
+        return (int) crc.getValue();
+    }
+
+    private static long offset(int slot) {
+        return (long) (slot + 1) * SLOT_SIZE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new EOFException("User store ends at " + position);
+            position += read;
+        }
+        buffer.flip();
+    }
+}
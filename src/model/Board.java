@@ -0,0 +1,291 @@
+package model;
+
+/**
+ * Packed form of a 4 x 5 board, stored in a single long.
+ * Cell (row, col) takes the 3 bits starting at 3 * (row * 5 + col), so the whole board uses the low 60 bits.
+ * Codes 0 - 4 are the same ids as in the level files, an obstacle (-1) is stored as code 5.
+ * Since every cell of a block holds the block id, a block is described by its up-left cell (anchor) and its id.
+ */
+
+public final class Board {
+    public static final int HEIGHT = 4;
+    public static final int WIDTH = 5;
+    public static final int CELLS = HEIGHT * WIDTH;
+    public static final int BITS_PER_CELL = 3;
+
+    public static final int EMPTY = 0;
+    public static final int CAO_CAO = 1;
+    public static final int VERTICAL = 2;
+    public static final int HORIZONTAL = 3;
+    public static final int SOLDIER = 4;
+    public static final int OBSTACLE = -1;
+    public static final int OBSTACLE_CODE = 5;
+
+    // the 2x2 block has to reach this up-left cell to win
+    public static final int WIN_ROW = 1;
+    public static final int WIN_COL = 3;
+
+    // returned by step() when the move is not legal, no real board uses the top 4 bits
+    public static final long ILLEGAL = -1L;
+
+    private static final long CELL_MASK = 0b111L;
+    private static final int ROW_BITS = WIDTH * BITS_PER_CELL;
+    private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+    // lowest bit of every cell field
+    private static final long ONES;
+    private static final long ALL_CELLS;
+    private static final long[][] FOOTPRINT = new long[OBSTACLE_CODE + 1][CELLS];
+    // the same footprints with one bit per cell
+    private static final int[][] CELL_FOOTPRINT = new int[OBSTACLE_CODE + 1][CELLS];
+
+    static {
+        long ones = 0;
+        for (int i = 0; i < CELLS; i++) ones |= 1L << (i * BITS_PER_CELL);
+        ONES = ones;
+        ALL_CELLS = ones * CELL_MASK;
+
+        for (int code = 1; code <= OBSTACLE_CODE; code++) {
+            for (int index = 0; index < CELLS; index++) {
+                int row = index / WIDTH;
+                int col = index % WIDTH;
+                int h = blockHeight(code);
+                int w = blockWidth(code);
+                if (row + h > HEIGHT || col + w > WIDTH) continue;
+
+                long mask = 0;
+                int cells = 0;
+                for (int r = 0; r < h; r++) {
+                    for (int c = 0; c < w; c++) {
+                        mask |= CELL_MASK << (index(row + r, col + c) * BITS_PER_CELL);
+                        cells |= 1 << index(row + r, col + c);
+                    }
+                }
+                FOOTPRINT[code][index] = mask;
+                CELL_FOOTPRINT[code][index] = cells;
+            }
+        }
+    }
+
+    private Board() {
+    }
+
+    public static int index(int row, int col) {
+        return row * WIDTH + col;
+    }
+
+    public static boolean inBounds(int row, int col) {
+        return row >= 0 && row < HEIGHT && col >= 0 && col < WIDTH;
+    }
+
+    public static int blockHeight(int id) {
+        return id == CAO_CAO || id == VERTICAL ? 2 : 1;
+    }
+
+    public static int blockWidth(int id) {
+        return id == CAO_CAO || id == HORIZONTAL ? 2 : 1;
+    }
+
+    public static int toCode(int id) {
+        if (id == OBSTACLE) return OBSTACLE_CODE;
+        if (id < EMPTY || id > SOLDIER) throw new IllegalArgumentException("Invalid block id: " + id);
+        return id;
+    }
+
+    public static int toId(int code) {
+        return code == OBSTACLE_CODE ? OBSTACLE : code;
+    }
+
+    /**
+     * Raw 3-bit code of one cell, obstacles come back as OBSTACLE_CODE.
+     */
+    public static int code(long board, int index) {
+        return (int) (board >>> (index * BITS_PER_CELL) & CELL_MASK);
+    }
+
+    /**
+     * Same contract as MapModel.getId: the block id of the cell, 0 when out of the board.
+     */
+    public static int get(long board, int row, int col) {
+        if (!inBounds(row, col)) return EMPTY;
+        return toId(code(board, index(row, col)));
+    }
+
+    public static long set(long board, int row, int col, int id) {
+        int shift = index(row, col) * BITS_PER_CELL;
+        return (board & ~(CELL_MASK << shift)) | ((long) toCode(id) << shift);
+    }
+
+    public static long fromMatrix(int[][] matrix) {
+        long board = 0;
+        for (int i = 0; i < HEIGHT; i++)
+            for (int j = 0; j < WIDTH; j++)
+                board |= (long) toCode(matrix[i][j]) << (index(i, j) * BITS_PER_CELL);
+        return board;
+    }
+
+    public static int[][] toMatrix(long board) {
+        int[][] matrix = new int[HEIGHT][WIDTH];
+        for (int i = 0; i < HEIGHT; i++)
+            for (int j = 0; j < WIDTH; j++)
+                matrix[i][j] = toId(code(board, index(i, j)));
+        return matrix;
+    }
+
+    /**
+     * Mask over all cell fields covered by a block of this code anchored at index, 0 when it does not fit.
+     */
+    public static long footprint(int code, int index) {
+        return FOOTPRINT[code][index];
+    }
+
+    /**
+     * Footprint with bit i set for every covered cell index i, 0 when the block does not fit.
+     */
+    public static int cells(int code, int index) {
+        return CELL_FOOTPRINT[code][index];
+    }
+
+    /**
+     * The bits a block of this code anchored at index adds to a board.
+     */
+    public static long pattern(int code, int index) {
+        return FOOTPRINT[code][index] & (ONES * code);
+    }
+
+    /**
+     * Writes the anchor index of every block into anchors (at least CELLS long) and returns how many there are.
+     * Cells are read row by row like GamePanel.initializeGame does, so runs of 2s and 3s split into pairs.
+     */
+    public static int anchors(long board, int[] anchors) {
+        int covered = 0;
+        int count = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if ((covered >>> i & 1) != 0) continue;
+            int code = code(board, i);
+            if (code == EMPTY || code == OBSTACLE_CODE) continue;
+
+            int cells = CELL_FOOTPRINT[code][i];
+            if (cells == 0) continue;
+            covered |= cells;
+            anchors[count++] = i;
+        }
+        return count;
+    }
+
+    /**
+     * True when a block has its up-left cell at index, reading the board the way anchors() does.
+     */
+    public static boolean isAnchor(long board, int index) {
+        int covered = 0;
+        for (int i = 0; i <= index; i++) {
+            if ((covered >>> i & 1) != 0) continue;
+            int code = code(board, i);
+            if (code == EMPTY || code == OBSTACLE_CODE) continue;
+
+            int cells = CELL_FOOTPRINT[code][i];
+            if (cells == 0) continue;
+            if (i == index) return true;
+            covered |= cells;
+        }
+        return false;
+    }
+
+    /**
+     * True when every cell the block would newly cover is empty.
+     * Both anchors must be places where the block fits.
+     */
+    public static boolean canMove(long board, int code, int fromIndex, int toIndex) {
+        long from = FOOTPRINT[code][fromIndex];
+        long to = FOOTPRINT[code][toIndex];
+        return from != 0 && to != 0 && (board & to & ~from) == 0;
+    }
+
+    public static long move(long board, int code, int fromIndex, int toIndex) {
+        return (board & ~FOOTPRINT[code][fromIndex]) | pattern(code, toIndex);
+    }
+
+    /**
+     * Moves the block anchored at (row, col) one cell, or returns ILLEGAL.
+     */
+    public static long step(long board, int row, int col, Direction direction) {
+        int toRow = row + direction.getRow();
+        int toCol = col + direction.getCol();
+        if (!inBounds(row, col) || !inBounds(toRow, toCol)) return ILLEGAL;
+
+        int code = code(board, index(row, col));
+        if (code == EMPTY || code == OBSTACLE_CODE) return ILLEGAL;
+
+        int from = index(row, col);
+        int to = index(toRow, toCol);
+        if (!canMove(board, code, from, to)) return ILLEGAL;
+        return move(board, code, from, to);
+    }
+
+    /**
+     * True when the 2x2 block covers the 2x2 area whose up-left cell is (row, col).
+     */
+    public static boolean isGoal(long board, int row, int col) {
+        int index = index(row, col);
+        long mask = FOOTPRINT[CAO_CAO][index];
+        return mask != 0 && (board & mask) == pattern(CAO_CAO, index);
+    }
+
+    public static boolean isWin(long board) {
+        return isGoal(board, WIN_ROW, WIN_COL);
+    }
+
+    /**
+     * Number of cells holding this code, obstacles are counted with OBSTACLE_CODE.
+     */
+    public static int count(long board, int code) {
+        long diff = board ^ (ONES * code);
+        // a field is zero exactly when the cell holds the code
+        long nonZero = (diff | diff >>> 1 | diff >>> 2) & ONES;
+        return CELLS - Long.bitCount(nonZero);
+    }
+
+    /**
+     * The board flipped upside down (row r becomes row 3 - r). The exit sits on rows 1-2, so a board
+     * and its mirror need the same number of steps.
+     */
+    public static long mirror(long board) {
+        return (board & ROW_MASK) << (3 * ROW_BITS)
+                | (board >>> ROW_BITS & ROW_MASK) << (2 * ROW_BITS)
+                | (board >>> (2 * ROW_BITS) & ROW_MASK) << ROW_BITS
+                | board >>> (3 * ROW_BITS) & ROW_MASK;
+    }
+
+    /**
+     * Anchor of a block of this code after mirror().
+     */
+    public static int mirrorIndex(int code, int index) {
+        int row = HEIGHT - blockHeight(code) - index / WIDTH;
+        return index(row, index % WIDTH);
+    }
+
+    /**
+     * Key shared by a board and its mirror, the smaller of the two.
+     * Blocks with the same id are interchangeable and the packed form only stores ids, so boards that
+     * differ only in which general or soldier sits where already have the same packed value.
+     * Searches, caches and level indexes key on this.
+     */
+    public static long canonical(long board) {
+        return Math.min(board, mirror(board));
+    }
+
+    public static boolean isValid(long board) {
+        return (board & ~ALL_CELLS) == 0;
+    }
+
+    public static String toString(long board) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < HEIGHT; i++) {
+            for (int j = 0; j < WIDTH; j++) {
+                if (j > 0) sb.append(' ');
+                sb.append(get(board, i, j));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
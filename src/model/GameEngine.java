@@ -0,0 +1,243 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * The rules of one game without any Swing: moves, undo / redo, the hammer and obstacle tools, the win
+ * check and the game clock. GameController drives it from the UI; bots, replays and tools can drive it
+ * directly, a move costs a few table lookups and no allocation.
+ * Moves and tool uses are kept as packed ints in a MoveHistory, so tool uses can be undone as well. The clock is a LongSupplier of
+ * milliseconds, System::currentTimeMillis in the game and anything else in simulations.
+ * Every GameRecorder added (replays, the move journal) is told about every change of the board.
+ * An engine is not thread-safe.
+ */
+
+public class GameEngine {
+    // every game has this much time, a loaded game continues with what was left
+    public static final long GAME_DURATION_MILLIS = 5 * 60 * 1000;
+
+    private final MapModel model;
+    private final LongSupplier clock;
+    private final MoveHistory history = new MoveHistory();
+    private int steps;
+    private long startTime;
+    private long duration = GAME_DURATION_MILLIS;
+    private GameRecorder[] recorders = new GameRecorder[0];
+
+    public GameEngine(MapModel model) {
+        this(model, System::currentTimeMillis);
+    }
+
+    public GameEngine(MapModel model, LongSupplier clock) {
+        this.model = model;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    public MapModel getModel() { return model; }
+
+    /**
+     * Moves the block whose up-left cell is (row, col) one cell, returns the move or Move.NONE when it is not legal.
+     */
+    public int move(int row, int col, Direction direction) {
+        int blockId = model.getId(row, col);
+        int toRow = row + direction.getRow();
+        int toCol = col + direction.getCol();
+        if (!isMoveValid(blockId, row, col, toRow, toCol)) return Move.NONE;
+
+        int move = Move.of(blockId, Board.index(row, col), Board.index(toRow, toCol));
+        model.moveBlock(blockId, row, col, toRow, toCol);
+        history.push(move);
+        steps++;
+        for (GameRecorder recorder : recorders) recorder.moved(move);
+        return move;
+    }
+
+    public boolean isMoveValid(int blockId, int fromRow, int fromCol, int toRow, int toCol) {
+        if (blockId <= 0) return false;
+        if (!model.checkInHeightSize(fromRow) || !model.checkInWidthSize(fromCol)) return false;
+        if (!model.checkInHeightSize(toRow) || !model.checkInWidthSize(toCol)) return false;
+
+        // isLegal expects the up-left cell of the block, callers may pass any cell
+        int from = Board.index(fromRow, fromCol);
+        if (!Board.isAnchor(model.getState(), from)) return false;
+        int move = Move.of(blockId, from, Board.index(toRow, toCol));
+        return MoveGenerator.isLegal(model.getState(), move, MoveGenerator.Metric.STEP);
+    }
+
+    /**
+     * The history entry undo() would take back (a move or a tool use), Move.NONE when there is none.
+     */
+    public int getLastMove() {
+        return history.peekUndo();
+    }
+
+    /**
+     * The history entry redo() would make again, Move.NONE when there is none.
+     */
+    public int getRedoMove() {
+        return history.peekRedo();
+    }
+
+    /**
+     * Takes back the last move or tool use and returns it. Returns Move.NONE and keeps the history when
+     * there is nothing to undo, or when the board no longer allows it (e.g. a tool use blocks a move's way back).
+     */
+    public int undo() {
+        int move = history.peekUndo();
+        if (move == Move.NONE || !revert(move)) return Move.NONE;
+        history.undo();
+        if (!Move.isTool(move)) steps--;
+        for (GameRecorder recorder : recorders) recorder.undone();
+        return move;
+    }
+
+    /**
+     * Makes the last undone move or tool use again and returns it, Move.NONE when there is none or the
+     * board no longer allows it.
+     */
+    public int redo() {
+        int move = history.peekRedo();
+        if (move == Move.NONE || !perform(move)) return Move.NONE;
+        history.redo();
+        if (!Move.isTool(move)) steps++;
+        for (GameRecorder recorder : recorders) recorder.redone();
+        return move;
+    }
+
+    /**
+     * Removes the soldier at (row, col), false when there is none.
+     */
+    public boolean hammer(int row, int col) {
+        if (!model.checkInHeightSize(row) || !model.checkInWidthSize(col)) return false;
+        int move = Move.hammer(Board.index(row, col));
+        if (!perform(move)) return false;
+        history.push(move);
+        for (GameRecorder recorder : recorders) recorder.toolUsed(move);
+        return true;
+    }
+
+    /**
+     * Puts an obstacle on the empty cell (row, col), false when it is not empty.
+     */
+    public boolean placeObstacle(int row, int col) {
+        if (!model.checkInHeightSize(row) || !model.checkInWidthSize(col)) return false;
+        int move = Move.obstacle(Board.index(row, col));
+        if (!perform(move)) return false;
+        history.push(move);
+        for (GameRecorder recorder : recorders) recorder.toolUsed(move);
+        return true;
+    }
+
+    // applies a history entry to the board, false when it does not fit the board
+    private boolean perform(int move) {
+        int row = Move.fromRow(move);
+        int col = Move.fromCol(move);
+        if (!Move.isTool(move)) {
+            if (!MoveGenerator.isLegal(model.getState(), move, MoveGenerator.Metric.STEP)) return false;
+            model.moveBlock(Move.code(move), row, col, Move.toRow(move), Move.toCol(move));
+        } else if (Move.code(move) == Board.SOLDIER) {
+            if (model.getId(row, col) != Board.SOLDIER) return false;
+            model.removeSoldier(row, col);
+        } else {
+            if (model.getId(row, col) != Board.EMPTY) return false;
+            model.setObstacle(row, col);
+        }
+        return true;
+    }
+
+    // takes a history entry back, false when the board does not allow it
+    private boolean revert(int move) {
+        if (!Move.isTool(move)) return perform(Move.inverse(move));
+        int row = Move.fromRow(move);
+        int col = Move.fromCol(move);
+        if (Move.code(move) == Board.SOLDIER) {
+            if (model.getId(row, col) != Board.EMPTY) return false;
+            model.restoreSoldier(row, col);
+        } else {
+            if (model.getId(row, col) != Board.OBSTACLE) return false;
+            model.removeObstacle(row, col);
+        }
+        return true;
+    }
+
+    public boolean isWon() {
+        return model.isGoal(Board.WIN_ROW, Board.WIN_COL);
+    }
+
+    /**
+     * Back to the level's first board with a full clock.
+     */
+    public void restart() {
+        model.resetMap();
+        clearHistory();
+        steps = 0;
+        startClock(GAME_DURATION_MILLIS / 1000);
+        for (GameRecorder recorder : recorders) recorder.restarted();
+    }
+
+    public void clearHistory() {
+        history.clear();
+    }
+
+    public MoveHistory getHistory() { return history; }
+
+    public int getSteps() { return steps; }
+
+    public void setSteps(int steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Starts the clock with timeLeft seconds to go.
+     */
+    public void startClock(long timeLeft) {
+        startTime = clock.getAsLong();
+        duration = timeLeft * 1000;
+    }
+
+    public long getRemainingMillis() {
+        return duration - (clock.getAsLong() - startTime);
+    }
+
+    public boolean isTimeUp() {
+        return getRemainingMillis() <= 0;
+    }
+
+    /**
+     * Seconds played in this game, counting the time used before a saved game was loaded.
+     */
+    public long getActualTime() {
+        return getElapsedMillis() / 1000;
+    }
+
+    public long getElapsedMillis() {
+        return clock.getAsLong() - startTime + GAME_DURATION_MILLIS - duration;
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    public GameRecorder[] getRecorders() { return recorders.clone(); }
+
+    /**
+     * Sends every following move, undo, redo, tool use and restart to recorder as well.
+     */
+    public void addRecorder(GameRecorder recorder) {
+        recorders = Arrays.copyOf(recorders, recorders.length + 1);
+        recorders[recorders.length - 1] = recorder;
+    }
+
+    public void removeRecorder(GameRecorder recorder) {
+        for (int i = 0; i < recorders.length; i++) {
+            if (recorders[i] != recorder) continue;
+            GameRecorder[] rest = new GameRecorder[recorders.length - 1];
+            System.arraycopy(recorders, 0, rest, 0, i);
+            System.arraycopy(recorders, i + 1, rest, i, rest.length - i);
+            recorders = rest;
+            return;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Told by a GameEngine about every change of the board, see GameEngine.addRecorder. Each call comes
+ * right after the engine changed, on the thread driving the engine, so the engine already shows the
+ * new board, steps and history.
+ */
+
+public interface GameRecorder {
+    void moved(int move);
+
+    void undone();
+
+    void redone();
+
+    /**
+     * A tool use, encoded as Move.hammer or Move.obstacle.
+     */
+    void toolUsed(int move);
+
+    void restarted();
+}
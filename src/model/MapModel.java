@@ -2,24 +2,33 @@ package model;
 
 /**
  * This class is to record the map of one game. For example:
+ * The board itself is one packed long (see Board), this class is a view over it.
+ * Next to it the model keeps the Zobrist hash of the board, updated on every change in O(changed cells).
  */
 
 public class MapModel {
-    private final int[][] matrix;
-    private final int[][] initialMatrix;
-    private final int width = 5;
-    private final int height = 4;
+    // -Dklotski.debugHash=true recomputes the hash after every change and fails on a mismatch
+    private static final boolean DEBUG_HASH = Boolean.getBoolean("klotski.debugHash");
+
+    private long state;
+    private long initialState;
+    private long hash;
+    private long initialHash;
+    private final int width = Board.WIDTH;
+    private final int height = Board.HEIGHT;
     private String level;
+    // the file the board was loaded from, null for saved or default boards
+    private String levelFile;
 
     public MapModel(int[][] matrix, String level) {
-        this.matrix = new int[height][width];
-        this.initialMatrix = new int[height][width];
+        this(Board.fromMatrix(matrix), level);
+    }
 
-        for (int i = 0; i < height; i++)
-        {
-            System.arraycopy(matrix[i], 0, this.matrix[i], 0, width);
-            System.arraycopy(matrix[i], 0, this.initialMatrix[i], 0, width);
-        }
+    public MapModel(long state, String level) {
+        this.state = state;
+        this.initialState = state;
+        this.hash = Zobrist.hash(state);
+        this.initialHash = hash;
         this.level = level;
     }
 
@@ -28,42 +37,106 @@ public class MapModel {
             throw new IllegalArgumentException("Invalid matrix dimensions");
         }
 
-        for (int i = 0; i < height; i++)
-            System.arraycopy(newMatrix[i], 0, matrix[i], 0, width);
+        setState(Board.fromMatrix(newMatrix));
     }
 
     public void resetMap() {
-        for (int i = 0; i < height; i++) {
-            System.arraycopy(initialMatrix[i], 0, matrix[i], 0, width);
-        }
+        state = initialState;
+        hash = initialHash;
+        checkHash();
     }
 
     public int getId(int row, int col) {
-        if (row >= 0 && row < height && col >= 0 && col < width) return matrix[row][col];
-        return 0;
+        return Board.get(state, row, col);
     }
 
     public void setObstacle(int row, int col) {
         if (getId(row, col) == 0) {
-            matrix[row][col] = -1;
+            setCell(row, col, Board.OBSTACLE);
         }
     }
 
     public void removeSoldier(int row, int col) {
         if (getId(row, col) == 4) {
-            matrix[row][col] = 0;
+            setCell(row, col, Board.EMPTY);
+        }
+    }
+
+    /**
+     * Puts a soldier back on the empty cell (row, col), undoing a hammer.
+     */
+    public void restoreSoldier(int row, int col) {
+        if (getId(row, col) == 0) {
+            setCell(row, col, Board.SOLDIER);
         }
     }
 
+    public void removeObstacle(int row, int col) {
+        if (getId(row, col) == Board.OBSTACLE) {
+            setCell(row, col, Board.EMPTY);
+        }
+    }
+
+    private void setCell(int row, int col, int id) {
+        int index = Board.index(row, col);
+        hash ^= Zobrist.cellDelta(index, Board.code(state, index), Board.toCode(id));
+        state = Board.set(state, row, col, id);
+        checkHash();
+    }
+
     public boolean isOccupied(int row, int col) {
         return getId(row, col) != 0;
     }
 
+    // (fromRow, fromCol) is the up-left cell of the block
+    public void moveBlock(int blockId, int fromRow, int fromCol, int toRow, int toCol) {
+        int from = Board.index(fromRow, fromCol);
+        int to = Board.index(toRow, toCol);
+        state = Board.move(state, blockId, from, to);
+        hash ^= Zobrist.moveDelta(blockId, from, to);
+        checkHash();
+    }
+
+    public boolean isGoal(int row, int col) {
+        return Board.isGoal(state, row, col);
+    }
+
     public int getWidth() { return width; }
 
     public int getHeight() { return height; }
 
-    public int[][] getMatrix() { return matrix; }
+    /**
+     * Returns a copy of the board, changes to it do not affect this model.
+     */
+    public int[][] getMatrix() { return Board.toMatrix(state); }
+
+    public long getState() { return state; }
+
+    public void setState(long state) {
+        hash ^= Zobrist.diff(this.state, state);
+        this.state = state;
+        checkHash();
+    }
+
+    public long getInitialState() { return initialState; }
+
+    /**
+     * Zobrist hash of the current board, see Zobrist.
+     */
+    public long getHash() { return hash; }
+
+    /**
+     * Recomputes the hash from scratch and compares it with the one kept up to date.
+     */
+    public boolean verifyHash() {
+        return hash == Zobrist.hash(state);
+    }
+
+    private void checkHash() {
+        if (DEBUG_HASH && !verifyHash()) {
+            throw new IllegalStateException("Zobrist hash out of sync with board:\n" + Board.toString(state));
+        }
+    }
 
     public String getLevel() { return level; }
 
@@ -71,11 +144,17 @@ public class MapModel {
         this.level = level;
     }
 
+    public String getLevelFile() { return levelFile; }
+
+    public void setLevelFile(String levelFile) {
+        this.levelFile = levelFile;
+    }
+
     public boolean checkInWidthSize(int col) {
-        return col >= 0 && col < matrix[0].length;
+        return col >= 0 && col < width;
     }
 
     public boolean checkInHeightSize(int row) {
-        return row >= 0 && row < matrix.length;
+        return row >= 0 && row < height;
     }
 }
@@ -0,0 +1,114 @@
+package model;
+
+/**
+ * A move packed into one int: bits 0-2 hold the block code, bits 3-7 the index of the up-left cell
+ * before the move and bits 8-12 the index after it (indexes as in Board).
+ * A tool use is stored as a move that stays on its cell: a soldier code for the hammer, the obstacle
+ * code for an obstacle dropped on an empty cell.
+ */
+
+public final class Move {
+    public static final int NONE = -1;
+
+    private Move() {
+    }
+
+    public static int of(int code, int fromIndex, int toIndex) {
+        return code | fromIndex << 3 | toIndex << 8;
+    }
+
+    public static int hammer(int index) {
+        return of(Board.SOLDIER, index, index);
+    }
+
+    public static int obstacle(int index) {
+        return of(Board.OBSTACLE_CODE, index, index);
+    }
+
+    public static boolean isTool(int move) {
+        return move != NONE && from(move) == to(move);
+    }
+
+    public static int code(int move) {
+        return move & 0b111;
+    }
+
+    public static int from(int move) {
+        return move >>> 3 & 0b11111;
+    }
+
+    public static int to(int move) {
+        return move >>> 8 & 0b11111;
+    }
+
+    public static int fromRow(int move) {
+        return from(move) / Board.WIDTH;
+    }
+
+    public static int fromCol(int move) {
+        return from(move) % Board.WIDTH;
+    }
+
+    public static int toRow(int move) {
+        return to(move) / Board.WIDTH;
+    }
+
+    public static int toCol(int move) {
+        return to(move) % Board.WIDTH;
+    }
+
+    /**
+     * Direction of a one-cell move, null for slides over two cells and L-shaped moves.
+     */
+    public static Direction direction(int move) {
+        int dRow = toRow(move) - fromRow(move);
+        int dCol = toCol(move) - fromCol(move);
+        for (Direction direction : Direction.values()) {
+            if (direction.getRow() == dRow && direction.getCol() == dCol) return direction;
+        }
+        return null;
+    }
+
+    /**
+     * The move that takes the board back, every move is reversible. Not defined for tool uses.
+     */
+    public static int inverse(int move) {
+        return of(code(move), to(move), from(move));
+    }
+
+    /**
+     * The same move on the mirrored board, see Board.mirror.
+     */
+    public static int mirror(int move) {
+        int code = code(move);
+        return of(code, Board.mirrorIndex(code, from(move)), Board.mirrorIndex(code, to(move)));
+    }
+
+    public static long apply(long board, int move) {
+        if (isTool(move)) {
+            int id = code(move) == Board.SOLDIER ? Board.EMPTY : Board.OBSTACLE;
+            return Board.set(board, fromRow(move), fromCol(move), id);
+        }
+        return Board.move(board, code(move), from(move), to(move));
+    }
+
+    /**
+     * The board before move was applied: the inverse move, or the soldier back / the obstacle gone for a tool use.
+     */
+    public static long revert(long board, int move) {
+        if (isTool(move)) {
+            int id = code(move) == Board.SOLDIER ? Board.SOLDIER : Board.EMPTY;
+            return Board.set(board, fromRow(move), fromCol(move), id);
+        }
+        return Board.move(board, code(move), to(move), from(move));
+    }
+
+    public static String toString(int move) {
+        if (move == NONE) return "none";
+        if (isTool(move)) {
+            return (code(move) == Board.SOLDIER ? "hammer" : "obstacle") + " (" + fromRow(move) + "," + fromCol(move) + ")";
+        }
+        return "block " + code(move) + " (" + fromRow(move) + "," + fromCol(move) + ") -> ("
+                + toRow(move) + "," + toCol(move) + ")";
+    }
+}
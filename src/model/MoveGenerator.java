@@ -0,0 +1,117 @@
+package model;
+
+/**
+ * Lists the legal moves of a packed board into a caller's int buffer (moves packed as in Move).
+ * Nothing is allocated per call, so the same buffer can be reused for millions of boards.
+ * The metric decides what one move is:
+ * STEP is one block going one cell, the step the game counts;
+ * SLIDE also lets a block go two cells in a straight line as one move;
+ * SLIDE_L adds the L-shaped moves of a soldier around a corner as one move.
+ */
+
+public final class MoveGenerator {
+    public enum Metric { STEP, SLIDE, SLIDE_L }
+
+    // 20 soldiers with 4 steps, 4 two-cell slides and 4 corners each
+    public static final int MAX_MOVES = Board.CELLS * 12;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // cells next to an index, and two cells away, per direction; -1 outside the board
+    private static final int[][] ONE = new int[Board.CELLS][DIRECTIONS.length];
+    private static final int[][] TWO = new int[Board.CELLS][DIRECTIONS.length];
+    // diagonal targets of an L move and the two corners it can go round; -1 outside the board
+    private static final int[][] CORNER_TARGET = new int[Board.CELLS][4];
+    private static final int[][] CORNER_A = new int[Board.CELLS][4];
+    private static final int[][] CORNER_B = new int[Board.CELLS][4];
+
+    static {
+        for (int i = 0; i < Board.CELLS; i++) {
+            int row = i / Board.WIDTH;
+            int col = i % Board.WIDTH;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                ONE[i][d] = cell(row + DIRECTIONS[d].getRow(), col + DIRECTIONS[d].getCol());
+                TWO[i][d] = cell(row + 2 * DIRECTIONS[d].getRow(), col + 2 * DIRECTIONS[d].getCol());
+            }
+
+            int k = 0;
+            for (int dRow = -1; dRow <= 1; dRow += 2) {
+                for (int dCol = -1; dCol <= 1; dCol += 2) {
+                    CORNER_TARGET[i][k] = cell(row + dRow, col + dCol);
+                    CORNER_A[i][k] = cell(row + dRow, col);
+                    CORNER_B[i][k] = cell(row, col + dCol);
+                    k++;
+                }
+            }
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    private static int cell(int row, int col) {
+        return Board.inBounds(row, col) ? Board.index(row, col) : -1;
+    }
+
+    /**
+     * Writes every legal move of the board into moves (at least MAX_MOVES long) and returns how many.
+     */
+    public static int generate(long board, Metric metric, int[] moves) {
+        int covered = 0;
+        int count = 0;
+        for (int from = 0; from < Board.CELLS; from++) {
+            if ((covered >>> from & 1) != 0) continue;
+            int code = Board.code(board, from);
+            if (code == Board.EMPTY || code == Board.OBSTACLE_CODE) continue;
+            int cells = Board.cells(code, from);
+            if (cells == 0) continue;
+            covered |= cells;
+
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int one = ONE[from][d];
+                if (one < 0 || !Board.canMove(board, code, from, one)) continue;
+                moves[count++] = Move.of(code, from, one);
+
+                int two = TWO[from][d];
+                if (metric != Metric.STEP && two >= 0 && Board.canMove(board, code, from, two)) {
+                    moves[count++] = Move.of(code, from, two);
+                }
+            }
+
+            if (metric == Metric.SLIDE_L && code == Board.SOLDIER) {
+                for (int k = 0; k < 4; k++) {
+                    if (isCornerFree(board, from, k)) moves[count++] = Move.of(code, from, CORNER_TARGET[from][k]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks one move under the metric; the from cell must be the up-left cell of a block of the move's code.
+     */
+    public static boolean isLegal(long board, int move, Metric metric) {
+        int code = Move.code(move);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (code == Board.EMPTY || code == Board.OBSTACLE_CODE || Board.code(board, from) != code) return false;
+
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (ONE[from][d] == to) return Board.canMove(board, code, from, to);
+            if (TWO[from][d] == to && metric != Metric.STEP) {
+                return Board.canMove(board, code, from, ONE[from][d]) && Board.canMove(board, code, from, to);
+            }
+        }
+        if (metric == Metric.SLIDE_L && code == Board.SOLDIER) {
+            for (int k = 0; k < 4; k++) {
+                if (CORNER_TARGET[from][k] == to) return isCornerFree(board, from, k);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCornerFree(long board, int from, int k) {
+        int target = CORNER_TARGET[from][k];
+        if (target < 0 || Board.code(board, target) != Board.EMPTY) return false;
+        return Board.code(board, CORNER_A[from][k]) == Board.EMPTY || Board.code(board, CORNER_B[from][k]) == Board.EMPTY;
+    }
+}
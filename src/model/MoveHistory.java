@@ -0,0 +1,145 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Undo / redo history of one game as packed Move ints: block moves, hammer uses (Move.hammer) and
+ * obstacles (Move.obstacle). Everything is O(1) and allocation free once the array has grown.
+ * The entries live in a ring that grows up to the limit; after that the oldest entry is dropped for
+ * every new one, so a long game keeps at most limit * 4 bytes and can be undone limit entries back.
+ * Undone entries stay for redo until a new entry is pushed.
+ */
+
+public class MoveHistory {
+    public static final int DEFAULT_LIMIT = 1 << 16;
+
+    private final int limit;
+    private int[] entries = new int[64];
+    private int mask = entries.length - 1;
+    // ring index of the oldest entry
+    private int head;
+    // entries that can be undone
+    private int size;
+    // size plus the entries that can be redone
+    private int end;
+
+    public MoveHistory() {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * A history keeping at most limit entries, rounded up to a power of two.
+     */
+    public MoveHistory(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("Limit must be positive: " + limit);
+        this.limit = limit == 1 ? 1 : Integer.highestOneBit(limit - 1) << 1;
+        if (this.limit < entries.length) {
+            entries = new int[this.limit];
+            mask = this.limit - 1;
+        }
+    }
+
+    /**
+     * Adds an entry after the ones that can be undone, the redo entries are dropped.
+     */
+    public void push(int move) {
+        if (size == entries.length) {
+            if (entries.length < limit) {
+                grow();
+            } else {
+                head = (head + 1) & mask;
+                size--;
+            }
+        }
+        entries[(head + size) & mask] = move;
+        size++;
+        end = size;
+    }
+
+    public boolean canUndo() {
+        return size > 0;
+    }
+
+    public boolean canRedo() {
+        return size < end;
+    }
+
+    /**
+     * The entry undo() would return, Move.NONE when there is none.
+     */
+    public int peekUndo() {
+        return size == 0 ? Move.NONE : entries[(head + size - 1) & mask];
+    }
+
+    /**
+     * The entry redo() would return, Move.NONE when there is none.
+     */
+    public int peekRedo() {
+        return size == end ? Move.NONE : entries[(head + size) & mask];
+    }
+
+    /**
+     * Steps back over the last entry and returns it, Move.NONE when there is none.
+     */
+    public int undo() {
+        int move = peekUndo();
+        if (move != Move.NONE) size--;
+        return move;
+    }
+
+    /**
+     * Steps forward over the next undone entry and returns it, Move.NONE when there is none.
+     */
+    public int redo() {
+        int move = peekRedo();
+        if (move != Move.NONE) size++;
+        return move;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        end = 0;
+    }
+
+    /**
+     * Number of entries that can be undone.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of entries that can be redone.
+     */
+    public int redoSize() {
+        return end - size;
+    }
+
+    /**
+     * Entry i counted from the oldest one kept, i < size() + redoSize().
+     */
+    public int get(int i) {
+        if (i < 0 || i >= end) throw new IndexOutOfBoundsException("Entry " + i + " of " + end);
+        return entries[(head + i) & mask];
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    private void grow() {
+        int[] grown = new int[entries.length << 1];
+        for (int i = 0; i < end; i++) grown[i] = entries[(head + i) & mask];
+        entries = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+
+    @Override
+    public String toString() {
+        int[] undo = new int[size];
+        for (int i = 0; i < size; i++) undo[i] = get(i);
+        return "MoveHistory{size=" + size + ", redo=" + (end - size) + ", entries=" + Arrays.toString(undo) + "}";
+    }
+}
@@ -0,0 +1,73 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for packed boards: one random 64-bit key per (cell, code), the hash of a board is the
+ * XOR of the keys of its cells. Empty cells have key 0, so moving a block only touches its own cells.
+ * The seed is fixed, so hashes are the same in every run and can be stored.
+ */
+
+public final class Zobrist {
+    private static final long SEED = 0x6B6C6F74736B69L;
+    private static final long[][] CELL_KEYS = new long[Board.CELLS][Board.OBSTACLE_CODE + 1];
+    // XOR of the cell keys under a block of this code anchored at an index
+    private static final long[][] BLOCK_KEYS = new long[Board.OBSTACLE_CODE + 1][Board.CELLS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < Board.CELLS; i++)
+            for (int code = 1; code <= Board.OBSTACLE_CODE; code++)
+                CELL_KEYS[i][code] = random.nextLong();
+
+        for (int code = 1; code <= Board.OBSTACLE_CODE; code++) {
+            for (int index = 0; index < Board.CELLS; index++) {
+                long key = 0;
+                for (int cells = Board.cells(code, index); cells != 0; cells &= cells - 1) {
+                    key ^= CELL_KEYS[Integer.numberOfTrailingZeros(cells)][code];
+                }
+                BLOCK_KEYS[code][index] = key;
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Hash of a whole board, computed from scratch.
+     */
+    public static long hash(long board) {
+        long hash = 0;
+        for (int i = 0; i < Board.CELLS; i++) hash ^= CELL_KEYS[i][Board.code(board, i)];
+        return hash;
+    }
+
+    /**
+     * What XOR-ing into a hash changes when one cell goes from one code to another.
+     */
+    public static long cellDelta(int index, int fromCode, int toCode) {
+        return CELL_KEYS[index][fromCode] ^ CELL_KEYS[index][toCode];
+    }
+
+    /**
+     * What XOR-ing into a hash changes when a block moves between two anchors.
+     */
+    public static long moveDelta(int code, int fromIndex, int toIndex) {
+        return BLOCK_KEYS[code][fromIndex] ^ BLOCK_KEYS[code][toIndex];
+    }
+
+    /**
+     * What XOR-ing into a hash changes when going from one board to another, only changed cells cost work.
+     */
+    public static long diff(long fromBoard, long toBoard) {
+        long delta = 0;
+        long changed = fromBoard ^ toBoard;
+        while (changed != 0) {
+            int index = Long.numberOfTrailingZeros(changed) / Board.BITS_PER_CELL;
+            delta ^= cellDelta(index, Board.code(fromBoard, index), Board.code(toBoard, index));
+            changed &= ~(0b111L << (index * Board.BITS_PER_CELL));
+        }
+        return delta;
+    }
+}
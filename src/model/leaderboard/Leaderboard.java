@@ -0,0 +1,242 @@
+package model.leaderboard;
+
+import model.Board;
+import model.replay.Replay;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Best results per level, ranked by steps, by time and by a combined score (see Metric). Each level
+ * has one Ranking per metric; submit, rank and top can be called from any number of threads.
+ * Levels are keyed by levelId, the start board up to mirroring, so a level counts the same whether it
+ * came from the catalog, a pack or a file.
+ * A leaderboard opened on a file appends every result that improved a ranking to it as one small
+ * record (level, player, steps, seconds) and replays them when opened again; opening compacts the
+ * file when most of its records were beaten since. GameController submits results ReplayVerifier found
+ * VALID to getDefault(), which keeps leaderboard/scores.klb.
+ */
+
+public class Leaderboard implements Closeable {
+    public static final Path FILE = Path.of("leaderboard", "scores.klb");
+    public static final int DEFAULT_TOP_SIZE = 10;
+    static final int MAGIC = 0x4B4C4231; // "KLB1"
+    static final int VERSION = 1;
+    // compact when the file has this many times more records than there are best results
+    private static final int COMPACT_RATIO = 2;
+
+    private static Leaderboard defaultLeaderboard;
+
+    private final int topSize;
+    private final ConcurrentHashMap<String, Ranking[]> levels = new ConcurrentHashMap<>();
+    private final AtomicLong order = new AtomicLong();
+    private final Path file;
+    // guarded by this
+    private DataOutputStream out;
+
+    /**
+     * A leaderboard kept in memory only.
+     */
+    public Leaderboard(int topSize) {
+        this(topSize, null);
+    }
+
+    private Leaderboard(int topSize, Path file) {
+        if (topSize < 1) throw new IllegalArgumentException("Top size must be positive: " + topSize);
+        this.topSize = topSize;
+        this.file = file;
+    }
+
+    /**
+     * Reads the results in file (a record cut off at the end is ignored) and appends new ones to it.
+     */
+    public static Leaderboard open(Path file, int topSize) throws IOException {
+        Leaderboard leaderboard = new Leaderboard(topSize, file);
+        int records = 0;
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) throw new IOException("Not a leaderboard: " + file);
+                int version = in.readUnsignedByte();
+                if (version != VERSION) throw new IOException("Unsupported leaderboard version " + version);
+                while (true) {
+                    String level;
+                    String player;
+                    int steps;
+                    long seconds;
+                    try {
+                        level = in.readUTF();
+                        player = in.readUTF();
+                        steps = (int) Replay.readVarint(in);
+                        seconds = Replay.readVarint(in);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    leaderboard.offer(level, player, steps, seconds);
+                    records++;
+                }
+            }
+        }
+
+        List<Run> kept = leaderboard.bestRuns();
+        if (records == 0 || records > COMPACT_RATIO * kept.size()) leaderboard.rewrite(kept);
+        leaderboard.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 256));
+        return leaderboard;
+    }
+
+    /**
+     * The leaderboard the game submits to, in FILE. Kept in memory only when the file cannot be used.
+     */
+    public static synchronized Leaderboard getDefault() {
+        if (defaultLeaderboard == null) {
+            try {
+                defaultLeaderboard = open(FILE, DEFAULT_TOP_SIZE);
+            } catch (IOException e) {
+                System.err.println("Leaderboard not saved: " + FILE + ", Error: " + e.getMessage());
+                defaultLeaderboard = new Leaderboard(DEFAULT_TOP_SIZE);
+            }
+        }
+        return defaultLeaderboard;
+    }
+
+    /**
+     * The key of the level starting on board.
+     */
+    public static String levelId(long board) {
+        return Long.toHexString(Board.canonical(board));
+    }
+
+    /**
+     * Records a result of player on level, returns whether it beat one of the player's bests there.
+     */
+    public boolean submit(String level, String player, int steps, long seconds) {
+        if (!offer(level, player, steps, seconds)) return false;
+        synchronized (this) {
+            if (out != null) {
+                try {
+                    writeRecord(out, level, player, steps, seconds);
+                    out.flush();
+                } catch (IOException e) {
+                    System.err.println("Leaderboard not saved: " + file + ", Error: " + e.getMessage());
+                    closeQuietly();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The ranking of level by metric, null when nobody has a result there yet.
+     */
+    public Ranking get(String level, Metric metric) {
+        Ranking[] rankings = levels.get(level);
+        return rankings == null ? null : rankings[metric.ordinal()];
+    }
+
+    /**
+     * The player's place on level by metric, 1 for the best, 0 without a result there.
+     */
+    public int rank(String level, Metric metric, String player) {
+        Ranking ranking = get(level, metric);
+        return ranking == null ? 0 : ranking.rank(player);
+    }
+
+    /**
+     * The best results on level by metric, best first, at most getTopSize().
+     */
+    public List<Score> top(String level, Metric metric) {
+        Ranking ranking = get(level, metric);
+        return ranking == null ? List.of() : ranking.top();
+    }
+
+    public Set<String> getLevels() {
+        return Collections.unmodifiableSet(levels.keySet());
+    }
+
+    public int getTopSize() { return topSize; }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private boolean offer(String level, String player, int steps, long seconds) {
+        Ranking[] rankings = levels.computeIfAbsent(level, key -> {
+            Ranking[] created = new Ranking[Metric.values().length];
+            for (Metric metric : Metric.values()) created[metric.ordinal()] = new Ranking(metric, topSize);
+            return created;
+        });
+        long submitted = order.getAndIncrement();
+        boolean improved = false;
+        for (Ranking ranking : rankings) improved |= ranking.offer(player, steps, seconds, submitted);
+        return improved;
+    }
+
+    // a result kept in the file
+    private static final class Run {
+        private final String level;
+        private final Score score;
+
+        Run(String level, Score score) {
+            this.level = level;
+            this.score = score;
+        }
+    }
+
+    // the results that are some player's best on some level by some metric, in the order they came
+    private List<Run> bestRuns() {
+        List<Run> runs = new ArrayList<>();
+        for (Map.Entry<String, Ranking[]> level : levels.entrySet()) {
+            Map<Long, Score> byOrder = new HashMap<>();
+            for (Ranking ranking : level.getValue()) {
+                for (Score score : ranking.scores()) byOrder.putIfAbsent(score.getOrder(), score);
+            }
+            for (Score score : byOrder.values()) runs.add(new Run(level.getKey(), score));
+        }
+        runs.sort(Comparator.comparingLong(run -> run.score.getOrder()));
+        return runs;
+    }
+
+    // replaces the file with a header and the runs, through a temp file and an atomic move
+    private void rewrite(List<Run> runs) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                data.writeInt(MAGIC);
+                data.writeByte(VERSION);
+                for (Run run : runs) {
+                    writeRecord(data, run.level, run.score.getPlayer(), run.score.getSteps(), run.score.getSeconds());
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream data, String level, String player, int steps, long seconds)
+            throws IOException {
+        data.writeUTF(level);
+        data.writeUTF(player);
+        Replay.writeVarint(data, Math.max(0, steps));
+        Replay.writeVarint(data, Math.max(0, seconds));
+    }
+
+    private void closeQuietly() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,37 @@
+package model.leaderboard;
+
+/**
+ * What a Ranking orders by, lower is better for all of them. Values are capped at limit() - 1, so
+ * every ranking fits a RankTree of limit() counters.
+ */
+
+public enum Metric {
+    STEPS,
+    TIME,
+    // steps plus seconds, a fast solution with a few extra steps can beat a slow short one
+    SCORE;
+
+    public static final int MAX_STEPS = 9_999;
+    public static final int MAX_SECONDS = 60 * 60;
+
+    public int of(int steps, long seconds) {
+        int cappedSteps = Math.max(0, Math.min(steps, MAX_STEPS));
+        int cappedSeconds = (int) Math.max(0, Math.min(seconds, MAX_SECONDS));
+        return switch (this) {
+            case STEPS -> cappedSteps;
+            case TIME -> cappedSeconds;
+            case SCORE -> cappedSteps + cappedSeconds;
+        };
+    }
+
+    /**
+     * Number of different values.
+     */
+    public int limit() {
+        return switch (this) {
+            case STEPS -> MAX_STEPS + 1;
+            case TIME -> MAX_SECONDS + 1;
+            case SCORE -> MAX_STEPS + MAX_SECONDS + 1;
+        };
+    }
+}
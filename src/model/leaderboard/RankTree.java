@@ -0,0 +1,29 @@
+package model.leaderboard;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fenwick tree counting entries per value in [0, limit): add and countBelow are O(log limit) and
+ * lock-free. Concurrent adds never get lost; a count taken while others add sees some of them.
+ */
+
+final class RankTree {
+    private final AtomicLongArray tree;
+
+    RankTree(int limit) {
+        tree = new AtomicLongArray(limit + 1);
+    }
+
+    void add(int value, long delta) {
+        for (int i = value + 1; i < tree.length(); i += i & -i) tree.getAndAdd(i, delta);
+    }
+
+    /**
+     * Number of entries with a value lower than value.
+     */
+    long countBelow(int value) {
+        long count = 0;
+        for (int i = Math.min(value, tree.length() - 1); i > 0; i -= i & -i) count += tree.get(i);
+        return count;
+    }
+}
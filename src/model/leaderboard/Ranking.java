@@ -0,0 +1,87 @@
+package model.leaderboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The players of one level ordered by one Metric. Every player's best Score is kept in a
+ * ConcurrentHashMap, counted per value in a RankTree for rank queries, and the best topSize scores
+ * also in a skip list. A submission updates all three inside the map's compute for that player, so
+ * submitters only wait for each other when they hash to the same bin, and while one of them updates
+ * the top list, which is changed and trimmed under one lock. Reading the top list takes no lock.
+ */
+
+public class Ranking {
+    private final Metric metric;
+    private final int topSize;
+    private final ConcurrentHashMap<String, Score> best = new ConcurrentHashMap<>();
+    private final RankTree counts;
+    private final ConcurrentSkipListSet<Score> top = new ConcurrentSkipListSet<>(Score::compare);
+    // entries in top, guarded by top (the skip list's own size() walks it)
+    private int topCount;
+
+    Ranking(Metric metric, int topSize) {
+        this.metric = metric;
+        this.topSize = topSize;
+        this.counts = new RankTree(metric.limit());
+    }
+
+    public Metric getMetric() { return metric; }
+
+    /**
+     * Keeps the result when it beats the player's best, returns whether it did.
+     */
+    boolean offer(String player, int steps, long seconds, long order) {
+        int value = metric.of(steps, seconds);
+        boolean[] improved = new boolean[1];
+        best.compute(player, (name, old) -> {
+            if (old != null && old.getValue() <= value) return old;
+            Score score = new Score(name, steps, seconds, value, order);
+            counts.add(value, 1);
+            if (old != null) counts.add(old.getValue(), -1);
+            synchronized (top) {
+                if (old != null && top.remove(old)) topCount--;
+                if (top.add(score)) topCount++;
+                while (topCount > topSize && top.pollLast() != null) topCount--;
+            }
+            improved[0] = true;
+            return score;
+        });
+        return improved[0];
+    }
+
+    /**
+     * The player's place, 1 for the best; players with equal values share a place. 0 when the player
+     * has no score here. O(log n).
+     */
+    public int rank(String player) {
+        Score score = best.get(player);
+        return score == null ? 0 : (int) counts.countBelow(score.getValue()) + 1;
+    }
+
+    public Score get(String player) {
+        return best.get(player);
+    }
+
+    /**
+     * The best scores, best first, at most the leaderboard's top size.
+     */
+    public List<Score> top() {
+        List<Score> scores = new ArrayList<>(topSize);
+        for (Score score : top) {
+            if (scores.size() == topSize) break;
+            scores.add(score);
+        }
+        return scores;
+    }
+
+    public int size() {
+        return best.size();
+    }
+
+    Iterable<Score> scores() {
+        return best.values();
+    }
+}
@@ -0,0 +1,42 @@
+package model.leaderboard;
+
+/**
+ * One player's best result in a Ranking: the steps and seconds of the run and the value the ranking
+ * orders by. Equal values keep the order they were submitted in.
+ */
+
+public final class Score {
+    private final String player;
+    private final int steps;
+    private final long seconds;
+    private final int value;
+    private final long order;
+
+    Score(String player, int steps, long seconds, int value, long order) {
+        this.player = player;
+        this.steps = steps;
+        this.seconds = seconds;
+        this.value = value;
+        this.order = order;
+    }
+
+    public String getPlayer() { return player; }
+
+    public int getSteps() { return steps; }
+
+    public long getSeconds() { return seconds; }
+
+    public int getValue() { return value; }
+
+    long getOrder() { return order; }
+
+    static int compare(Score a, Score b) {
+        if (a.value != b.value) return Integer.compare(a.value, b.value);
+        return Long.compare(a.order, b.order);
+    }
+
+    @Override
+    public String toString() {
+        return player + " " + value + " (" + steps + " steps, " + seconds + " s)";
+    }
+}
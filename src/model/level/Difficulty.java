@@ -0,0 +1,51 @@
+package model.level;
+
+/**
+ * Difficulty buckets, graded by the number of steps of an optimal solution.
+ */
+
+public enum Difficulty {
+    EASY("Easy", "easy", 30),
+    MEDIUM("Medium", "medium", 60),
+    HARD("Hard", "hard", Integer.MAX_VALUE);
+
+    private final String label;
+    private final String folder;
+    // largest optimal length in this bucket
+    private final int maxMoves;
+
+    Difficulty(String label, String folder, int maxMoves) {
+        this.label = label;
+        this.folder = folder;
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * The bucket of a solvable level, null for optimalMoves < 0 (unsolvable).
+     */
+    public static Difficulty of(int optimalMoves) {
+        if (optimalMoves < 0) return null;
+        for (Difficulty difficulty : values()) {
+            if (optimalMoves <= difficulty.maxMoves) return difficulty;
+        }
+        return HARD;
+    }
+
+    /**
+     * Same names as MapModel.getLevel and the save files use.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Folder under resources/levels.
+     */
+    public String getFolder() {
+        return folder;
+    }
+
+    public int getMaxMoves() {
+        return maxMoves;
+    }
+}
@@ -0,0 +1,66 @@
+package model.level;
+
+import model.Board;
+
+/**
+ * One level as an immutable value: its packed board and where it came from.
+ */
+
+public final class Level {
+    private final Difficulty difficulty;
+    private final int number;
+    private final String file;
+    private final long board;
+    private final int optimalMoves;
+
+    /**
+     * difficulty and number are those of the file name (resources/levels/easy/3.txt is EASY 3),
+     * optimalMoves is -1 when it is not known.
+     */
+    public Level(Difficulty difficulty, int number, String file, long board, int optimalMoves) {
+        this.difficulty = difficulty;
+        this.number = number;
+        this.file = file;
+        this.board = board;
+        this.optimalMoves = optimalMoves;
+    }
+
+    /**
+     * A level that has no file yet, e.g. one made by LevelGenerator.
+     */
+    public static Level generated(long board, int optimalMoves) {
+        return new Level(Difficulty.of(optimalMoves), 0, null, board, optimalMoves);
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Path of the level file, null for levels that do not come from one.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    public long getBoard() {
+        return board;
+    }
+
+    public int[][] getMatrix() {
+        return Board.toMatrix(board);
+    }
+
+    public int getOptimalMoves() {
+        return optimalMoves;
+    }
+
+    @Override
+    public String toString() {
+        return (difficulty != null ? difficulty.getLabel() : "Level") + " " + number;
+    }
+}
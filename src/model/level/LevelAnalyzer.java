@@ -0,0 +1,213 @@
+package model.level;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+import model.solver.LongHashSet;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Headless batch grader for level files. Every level is checked with LevelParser, then its whole
+ * reachable state space is explored once by breadth-first search, which gives the optimal number of
+ * steps, the number of reachable boards (a board and its mirror count once) and the average number
+ * of moves per board. Levels are analyzed in parallel on a fork-join pool.
+ * Usage: LevelAnalyzer [levels directory] [threads], default resources/levels and all cores.
+ */
+
+public final class LevelAnalyzer {
+    public static class Report {
+        private final Path file;
+        private final String error;
+        private final int optimalMoves;
+        private final int reachableStates;
+        private final double branchingFactor;
+        private final long elapsedNanos;
+
+        public Report(Path file, String error, int optimalMoves, int reachableStates, double branchingFactor, long elapsedNanos) {
+            this.file = file;
+            this.error = error;
+            this.optimalMoves = optimalMoves;
+            this.reachableStates = reachableStates;
+            this.branchingFactor = branchingFactor;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * Why the file is not a playable level, null when it is.
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Steps of an optimal solution, -1 when there is none.
+         */
+        public int getOptimalMoves() {
+            return optimalMoves;
+        }
+
+        public boolean isSolvable() {
+            return optimalMoves >= 0;
+        }
+
+        public int getReachableStates() {
+            return reachableStates;
+        }
+
+        public double getBranchingFactor() {
+            return branchingFactor;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public Difficulty getDifficulty() {
+            return Difficulty.of(optimalMoves);
+        }
+
+        @Override
+        public String toString() {
+            if (!isValid()) return String.format("%-40s INVALID  %s", file, error);
+            return String.format("%-40s %8s %6d %9d %6.2f %9.2f ms", file,
+                    isSolvable() ? getDifficulty().getLabel() : "None", optimalMoves, reachableStates,
+                    branchingFactor, elapsedNanos / 1e6);
+        }
+    }
+
+    private LevelAnalyzer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : "resources/levels");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(p -> p.toString().endsWith(".txt")).sorted().toList();
+        }
+
+        long begin = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Report> reports;
+        try {
+            reports = pool.invoke(new Task(files, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        print(reports, System.out);
+        System.out.printf("%d levels in %.1f ms on %d threads%n", reports.size(), (System.nanoTime() - begin) / 1e6, threads);
+    }
+
+    public static List<Report> analyzeAll(List<Path> files) {
+        return ForkJoinPool.commonPool().invoke(new Task(files, 0, files.size()));
+    }
+
+    public static void print(List<Report> reports, PrintStream out) {
+        out.printf("%-40s %8s %6s %9s %6s %12s%n", "level", "bucket", "moves", "states", "branch", "time");
+        for (Report report : reports) out.println(report);
+    }
+
+    public static Report analyze(Path file) {
+        long begin = System.nanoTime();
+        long start;
+        try {
+            start = LevelParser.read(file);
+        } catch (IOException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new Report(file, cause.getMessage(), -1, 0, 0, System.nanoTime() - begin);
+        }
+        return analyze(file, start, begin);
+    }
+
+    /**
+     * Explores everything reachable from start; file is only used to name the report.
+     */
+    public static Report analyze(Path file, long start) {
+        return analyze(file, start, System.nanoTime());
+    }
+
+    // begin is when timing started, so a report read from a file includes the parse
+    private static Report analyze(Path file, long start, long begin) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        LongHashSet visited = new LongHashSet(1 << 14);
+        long[] queue = new long[1 << 12];
+        int tail = 0;
+        long edges = 0;
+        int optimal = -1;
+
+        visited.add(Board.canonical(start));
+        queue[tail++] = start;
+        // nodes up to layerEnd are at distance depth from the start
+        int layerEnd = tail;
+        int depth = 0;
+        for (int head = 0; head < tail; head++) {
+            if (head == layerEnd) {
+                depth++;
+                layerEnd = tail;
+            }
+            long state = queue[head];
+            if (optimal < 0 && Board.isWin(state)) optimal = depth;
+
+            int count = MoveGenerator.generate(state, MoveGenerator.Metric.STEP, moves);
+            edges += count;
+            for (int k = 0; k < count; k++) {
+                long next = Move.apply(state, moves[k]);
+                if (!visited.add(Board.canonical(next))) continue;
+                if (tail == queue.length) queue = Arrays.copyOf(queue, tail << 1);
+                queue[tail++] = next;
+            }
+        }
+
+        return new Report(file, null, optimal, tail, (double) edges / tail, System.nanoTime() - begin);
+    }
+
+    // splits the file list in halves until one file is left
+    private static class Task extends RecursiveTask<List<Report>> {
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+
+        private Task(List<Path> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Report> compute() {
+            if (to - from == 1) {
+                List<Report> reports = new ArrayList<>(1);
+                reports.add(analyze(files.get(from)));
+                return reports;
+            }
+            if (to == from) return new ArrayList<>();
+
+            int mid = (from + to) >>> 1;
+            Task left = new Task(files, from, mid);
+            left.fork();
+            List<Report> reports = new Task(files, mid, to).compute();
+            List<Report> result = left.join();
+            result.addAll(reports);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package model.level;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * All levels under resources/levels, read once and kept as Level values, so starting a level does no
+ * file I/O. The catalog comes from a prebuilt index file when there is an up-to-date one (see main),
+ * otherwise from one scan of the folders. Files that LevelParser rejects are left out with a warning.
+ * With watch() a background thread rescans a folder whenever a level file in it changes.
+ * Lookups read an immutable snapshot and are safe from any thread.
+ */
+
+public class LevelCatalog {
+    public static final String INDEX_FILE = "levels.idx";
+    private static final int INDEX_MAGIC = 0x4B4C4931; // "KLI1"
+    private static final Path DEFAULT_ROOT = Path.of("resources/levels");
+
+    private static LevelCatalog defaultCatalog;
+
+    private final Path root;
+    private volatile Map<Difficulty, Level[]> levels;
+    private final AtomicIntegerArray cursors = new AtomicIntegerArray(Difficulty.values().length);
+    private WatchService watcher;
+
+    private LevelCatalog(Path root, Map<Difficulty, Level[]> levels) {
+        this.root = root;
+        this.levels = levels;
+    }
+
+    /**
+     * The catalog of resources/levels, loaded on first use and kept up to date while the game runs.
+     */
+    public static synchronized LevelCatalog getDefault() {
+        if (defaultCatalog == null) {
+            defaultCatalog = load(DEFAULT_ROOT);
+            defaultCatalog.watch();
+        }
+        return defaultCatalog;
+    }
+
+    /**
+     * Builds the index file of a levels directory. Usage: LevelCatalog [levels directory]
+     */
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : DEFAULT_ROOT.toString());
+        LevelCatalog catalog = new LevelCatalog(root, scan(root));
+        catalog.writeIndex(root.resolve(INDEX_FILE));
+        for (Difficulty difficulty : Difficulty.values()) {
+            System.out.println(difficulty.getLabel() + ": " + catalog.count(difficulty) + " levels");
+        }
+    }
+
+    public static LevelCatalog load(Path root) {
+        Path index = root.resolve(INDEX_FILE);
+        try {
+            if (isCurrent(root, index)) return new LevelCatalog(root, readIndex(index));
+        } catch (IOException e) {
+            System.err.println("Level index loading failed: " + index + ", Error: " + e.getMessage());
+        }
+        return new LevelCatalog(root, scan(root));
+    }
+
+    /**
+     * The levels directory of the catalog.
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    public int count(Difficulty difficulty) {
+        return levels.get(difficulty).length;
+    }
+
+    /**
+     * A random level of this difficulty, null when there is none.
+     */
+    public Level random(Difficulty difficulty) {
+        Level[] list = levels.get(difficulty);
+        return list.length == 0 ? null : list[ThreadLocalRandom.current().nextInt(list.length)];
+    }
+
+    /**
+     * The levels of this difficulty one after another, starting over after the last; null when there is none.
+     */
+    public Level next(Difficulty difficulty) {
+        Level[] list = levels.get(difficulty);
+        if (list.length == 0) return null;
+        int i = cursors.getAndIncrement(difficulty.ordinal());
+        return list[Math.floorMod(i, list.length)];
+    }
+
+    /**
+     * The level in file number.txt, null when there is none.
+     */
+    public Level get(Difficulty difficulty, int number) {
+        Level[] list = levels.get(difficulty);
+        // files are usually numbered 1..n without gaps
+        if (number >= 1 && number <= list.length && list[number - 1].getNumber() == number) return list[number - 1];
+        for (Level level : list) if (level.getNumber() == number) return level;
+        return null;
+    }
+
+    public List<Level> getAll(Difficulty difficulty) {
+        return List.of(levels.get(difficulty));
+    }
+
+    /**
+     * Starts a daemon thread that rescans a difficulty folder whenever a level file in it changes.
+     */
+    public synchronized void watch() {
+        if (watcher != null) return;
+        try {
+            watcher = root.getFileSystem().newWatchService();
+            for (Difficulty difficulty : Difficulty.values()) {
+                Path folder = root.resolve(difficulty.getFolder());
+                if (Files.isDirectory(folder)) {
+                    folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Level folders cannot be watched: " + e.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(this::watchLoop, "level-catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void close() throws IOException {
+        if (watcher != null) watcher.close();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                // editors write a file in several steps, let them finish
+                Thread.sleep(100);
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= isLevelEvent(event);
+                }
+                Path folder = (Path) key.watchable();
+                for (Difficulty difficulty : Difficulty.values()) {
+                    if (changed && folder.equals(root.resolve(difficulty.getFolder()))) reload(difficulty);
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the catalog was closed
+        }
+    }
+
+    // only N.txt files are levels; editor swap files, .tmp and .dist files do not change the catalog
+    private static boolean isLevelEvent(WatchEvent<?> event) {
+        // events were lost, any file may have changed
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) return true;
+        Path file = (Path) event.context();
+        return file.toString().endsWith(".txt") && number(file) >= 0;
+    }
+
+    private void reload(Difficulty difficulty) {
+        Map<Difficulty, Level[]> copy = new EnumMap<>(levels);
+        copy.put(difficulty, scan(root, difficulty));
+        levels = copy;
+    }
+
+    private static Map<Difficulty, Level[]> scan(Path root) {
+        Map<Difficulty, Level[]> levels = new EnumMap<>(Difficulty.class);
+        for (Difficulty difficulty : Difficulty.values()) levels.put(difficulty, scan(root, difficulty));
+        return levels;
+    }
+
+    private static Level[] scan(Path root, Difficulty difficulty) {
+        Path folder = root.resolve(difficulty.getFolder());
+        List<Level> list = new ArrayList<>();
+        if (!Files.isDirectory(folder)) return new Level[0];
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*.txt")) {
+            for (Path file : files) {
+                int number = number(file);
+                if (number < 0) continue;
+                try {
+                    list.add(new Level(difficulty, number, file.toString(), LevelParser.read(file), -1));
+                } catch (IOException e) {
+                    System.err.println("Skipped level: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Level folder scan failed: " + folder + ", Error: " + e.getMessage());
+        }
+        list.sort(Comparator.comparingInt(Level::getNumber));
+        return list.toArray(new Level[0]);
+    }
+
+    // N for N.txt, -1 for other names
+    private static int number(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - ".txt".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // the index is used when it is newer than every level folder (adding or removing a file touches the
+    // folder) and every level file in them (editing a file in place does not)
+    private static boolean isCurrent(Path root, Path index) throws IOException {
+        if (!Files.isRegularFile(index)) return false;
+        long built = Files.getLastModifiedTime(index).toMillis();
+        for (Difficulty difficulty : Difficulty.values()) {
+            Path folder = root.resolve(difficulty.getFolder());
+            if (!Files.isDirectory(folder)) continue;
+            if (Files.getLastModifiedTime(folder).toMillis() > built) return false;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*.txt")) {
+                for (Path file : files) {
+                    if (Files.getLastModifiedTime(file).toMillis() > built) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes every level of the catalog to an index file, see load.
+     */
+    public void writeIndex(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            for (Difficulty difficulty : Difficulty.values()) {
+                Level[] list = levels.get(difficulty);
+                out.writeInt(list.length);
+                for (Level level : list) {
+                    out.writeInt(level.getNumber());
+                    out.writeLong(level.getBoard());
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<Difficulty, Level[]> readIndex(Path file) throws IOException {
+        Path root = file.getParent();
+        Map<Difficulty, Level[]> levels = new EnumMap<>(Difficulty.class);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != INDEX_MAGIC) throw new IOException("Not a level index");
+            for (Difficulty difficulty : Difficulty.values()) {
+                Level[] list = new Level[in.readInt()];
+                for (int i = 0; i < list.length; i++) {
+                    int number = in.readInt();
+                    String path = root.resolve(difficulty.getFolder()).resolve(number + ".txt").toString();
+                    list[i] = new Level(difficulty, number, path, in.readLong(), -1);
+                }
+                levels.put(difficulty, list);
+            }
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,250 @@
+package model.level;
+
+import model.Board;
+import model.solver.AStarSolver;
+import model.solver.CancellationToken;
+import model.solver.LongIntHashMap;
+import model.solver.SearchLimits;
+import model.solver.Solution;
+import model.solver.Solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Finds levels that are the same board, and levels that are only a part of another level.
+ * Boards are compared by Board.canonical, so boards that differ only in which general or soldier sits
+ * where, or that are mirrors of each other, are the same level. The index maps each canonical key to
+ * the first level that had it; it is a primitive hash map, so 100k levels take a few MB.
+ * A near-duplicate is a level whose board appears on the optimal path of another level: playing the
+ * other level plays this one too. Solutions are found with A* under a budget; when a level has several
+ * optimal paths only the one found is checked.
+ * Usage: LevelDeduplicator [--remove] [--near] [--index file] paths...
+ * Paths can be level files, folders of level files or level packs. --remove deletes duplicate and
+ * near-duplicate text files, --index adds the keys of an earlier run first and writes them back after.
+ */
+
+public class LevelDeduplicator {
+    // returned by add for a new board, and for one that an earlier run's index already has
+    public static final int UNIQUE = -1;
+    public static final int INDEXED = -2;
+    private static final SearchLimits LIMITS = SearchLimits.nodes(2_000_000);
+
+    /**
+     * One duplicate: level is the same board as other (exact) or appears at step of other's solution.
+     * other is INDEXED when the board is known from a loaded index.
+     */
+    public static class Finding {
+        private final int level;
+        private final int other;
+        private final boolean exact;
+        private final int step;
+
+        public Finding(int level, int other, boolean exact, int step) {
+            this.level = level;
+            this.other = other;
+            this.exact = exact;
+            this.step = step;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getOther() {
+            return other;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+
+        public int getStep() {
+            return step;
+        }
+    }
+
+    // canonical key -> first level with it, INDEXED for keys that came from a loaded index
+    private final LongIntHashMap index = new LongIntHashMap(1 << 12);
+    private long[] loadedKeys = new long[0];
+    private long[] boards = new long[1 << 10];
+    private String[] names = new String[1 << 10];
+    // the level this one duplicates, UNIQUE or INDEXED
+    private int[] duplicateOf = new int[1 << 10];
+    private int size;
+
+    public static void main(String[] args) throws IOException {
+        boolean remove = false;
+        boolean near = false;
+        Path indexFile = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--remove" -> remove = true;
+                case "--near" -> near = true;
+                case "--index" -> indexFile = Path.of(args[++i]);
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) inputs.add(Path.of("resources/levels"));
+
+        long begin = System.nanoTime();
+        LevelDeduplicator deduplicator = new LevelDeduplicator();
+        if (indexFile != null && Files.isRegularFile(indexFile)) deduplicator.loadIndex(indexFile);
+        for (Path input : inputs) deduplicator.addAll(input);
+
+        List<Finding> findings = new ArrayList<>(deduplicator.getDuplicates());
+        if (near) findings.addAll(deduplicator.findNearDuplicates());
+
+        for (Finding finding : findings) {
+            String other = finding.getOther() == INDEXED ? "an indexed level" : deduplicator.getName(finding.getOther());
+            if (finding.isExact()) {
+                System.out.println("duplicate: " + deduplicator.getName(finding.getLevel()) + " = " + other);
+            } else {
+                System.out.println("near-duplicate: " + deduplicator.getName(finding.getLevel()) + " is step "
+                        + finding.getStep() + " of " + other);
+            }
+            Path file = Path.of(deduplicator.getName(finding.getLevel()));
+            if (remove && file.toString().endsWith(".txt") && Files.deleteIfExists(file)) {
+                System.out.println("removed " + file);
+            }
+        }
+        if (indexFile != null) deduplicator.saveIndex(indexFile);
+        System.out.printf("%d levels, %d findings in %.1f ms%n", deduplicator.size(), findings.size(),
+                (System.nanoTime() - begin) / 1e6);
+    }
+
+    /**
+     * Adds a level file, every level file under a folder, or every level of a pack (.klp).
+     */
+    public void addAll(Path input) throws IOException {
+        if (input.toString().endsWith(".klp")) {
+            LevelPack pack = LevelPack.open(input);
+            for (int i = 0; i < pack.size(); i++) add(input + "#" + i, pack.get(i).getBoard());
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(input)) {
+            files = stream.filter(p -> p.toString().endsWith(".txt")).sorted().toList();
+        }
+        for (Path file : files) {
+            try {
+                add(file.toString(), LevelParser.read(file));
+            } catch (IOException e) {
+                System.err.println("Skipped level: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds one level and returns the level it duplicates, UNIQUE or INDEXED.
+     */
+    public int add(String name, long board) {
+        if (size == boards.length) {
+            boards = Arrays.copyOf(boards, size << 1);
+            names = Arrays.copyOf(names, size << 1);
+            duplicateOf = Arrays.copyOf(duplicateOf, size << 1);
+        }
+        long key = Board.canonical(board);
+        int first = index.get(key, UNIQUE);
+        boards[size] = board;
+        names[size] = name;
+        duplicateOf[size] = first;
+        if (first == UNIQUE) index.put(key, size);
+        size++;
+        return first;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int level) {
+        return names[level];
+    }
+
+    public long getBoard(int level) {
+        return boards[level];
+    }
+
+    public List<Finding> getDuplicates() {
+        List<Finding> findings = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (duplicateOf[i] != UNIQUE) findings.add(new Finding(i, duplicateOf[i], true, 0));
+        }
+        return findings;
+    }
+
+    /**
+     * Solves every unique level on all cores and reports each other unique level that one of the
+     * solutions passes through. Runs after all levels are added, so the order of the input does not matter.
+     */
+    public List<Finding> findNearDuplicates() {
+        ThreadLocal<Solver> solvers = ThreadLocal.withInitial(AStarSolver::new);
+        List<Finding> findings = IntStream.range(0, size).parallel()
+                .filter(i -> duplicateOf[i] == UNIQUE)
+                .mapToObj(i -> {
+                    Solution solution = solvers.get().solve(boards[i], LIMITS, CancellationToken.NONE);
+                    List<Finding> found = new ArrayList<>();
+                    for (int step = 1; step <= solution.getLength(); step++) {
+                        int level = index.get(Board.canonical(solution.getState(step)), UNIQUE);
+                        if (level >= 0 && level != i) found.add(new Finding(level, i, false, step));
+                    }
+                    return found;
+                })
+                .flatMap(List::stream)
+                .toList();
+
+        // a level on several paths is reported once, for the first level that contains it
+        boolean[] seen = new boolean[size];
+        List<Finding> unique = new ArrayList<>();
+        for (Finding finding : findings) {
+            if (seen[finding.getLevel()]) continue;
+            seen[finding.getLevel()] = true;
+            unique.add(finding);
+        }
+        return unique;
+    }
+
+    /**
+     * Writes the canonical keys of all levels, sorted.
+     */
+    public void saveIndex(Path file) throws IOException {
+        long[] keys = new long[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) if (duplicateOf[i] == UNIQUE) keys[count++] = Board.canonical(boards[i]);
+        keys = Arrays.copyOf(keys, count + loadedKeys.length);
+        System.arraycopy(loadedKeys, 0, keys, count, loadedKeys.length);
+        Arrays.sort(keys);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(keys.length);
+            for (long key : keys) out.writeLong(key);
+        }
+    }
+
+    /**
+     * Adds the keys of an earlier saveIndex; levels with those boards are reported as duplicates.
+     */
+    public void loadIndex(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long[] keys = new long[in.readInt()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = in.readLong();
+                index.put(keys[i], INDEXED);
+            }
+            loadedKeys = keys;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package model.level;
+
+import model.Board;
+import model.solver.LongHashSet;
+import model.solver.StateSpace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Makes solvable levels whose optimal solution length lies in a requested range.
+ * One attempt places a random set of blocks on the board, explores everything reachable from it and
+ * measures each board's exact distance to the goal (StateSpace), then picks one of the boards whose
+ * distance is in range. Every level is therefore solvable with a known optimal length.
+ * Attempt k always uses the same random numbers for a seed, and attempts are accepted in order of k,
+ * so a seed gives the same levels whatever the number of threads. Levels are unique up to mirroring.
+ * Usage: LevelGenerator count minMoves maxMoves [seed] [threads] [output directory]
+ */
+
+public class LevelGenerator {
+    private static final int EMPTY_CELLS = 2;
+    // cells left for the other blocks next to the 2x2 block and the empty cells
+    private static final int BLOCK_CELLS = Board.CELLS - 4 - EMPTY_CELLS;
+
+    private final long seed;
+    private final int minMoves;
+    private final int maxMoves;
+
+    public LevelGenerator(long seed, int minMoves, int maxMoves) {
+        if (minMoves < 1 || maxMoves < minMoves) throw new IllegalArgumentException("Invalid move range");
+        this.seed = seed;
+        this.minMoves = minMoves;
+        this.maxMoves = maxMoves;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: LevelGenerator count minMoves maxMoves [seed] [threads] [output directory]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        int min = Integer.parseInt(args[1]);
+        int max = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 109L;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        Path out = Path.of(args.length > 5 ? args[5] : "generated/levels");
+
+        long begin = System.nanoTime();
+        List<Level> levels = new LevelGenerator(seed, min, max).generate(count, threads);
+        for (int i = 0; i < levels.size(); i++) {
+            LevelWriter.write(out.resolve((i + 1) + ".txt"), levels.get(i).getBoard());
+        }
+        System.out.printf("%d levels (%d-%d moves) in %.1f s on %d threads, written to %s%n",
+                levels.size(), min, max, (System.nanoTime() - begin) / 1e9, threads, out);
+    }
+
+    public List<Level> generate(int count, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Level> levels = new ArrayList<>(count);
+            LongHashSet used = new LongHashSet();
+            int batch = Math.max(16, threads * 4);
+            for (long next = 0; levels.size() < count; next += batch) {
+                List<Callable<Level>> attempts = new ArrayList<>(batch);
+                for (long k = next; k < next + batch; k++) {
+                    long attempt = k;
+                    attempts.add(() -> attempt(attempt));
+                }
+                for (Future<Level> future : executor.invokeAll(attempts)) {
+                    Level level = future.get();
+                    if (level != null && levels.size() < count && used.add(level.getBoard())) levels.add(level);
+                }
+            }
+            return levels;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Level generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One placement and search, null when no board of the placement is in range.
+     */
+    public Level attempt(long k) {
+        SplittableRandom random = new SplittableRandom(seed ^ k * 0x9E3779B97F4A7C15L);
+        long start = place(random);
+        if (start == Board.ILLEGAL || LevelParser.validate(start) != null) return null;
+
+        long[] keys = StateSpace.reachable(start);
+        int[] distances = StateSpace.distances(keys);
+        int matches = 0;
+        for (int d : distances) if (d >= minMoves && d <= maxMoves) matches++;
+        if (matches == 0) return null;
+
+        int pick = random.nextInt(matches);
+        for (int i = 0; i < keys.length; i++) {
+            if (distances[i] >= minMoves && distances[i] <= maxMoves && pick-- == 0) {
+                return Level.generated(keys[i], distances[i]);
+            }
+        }
+        return null;
+    }
+
+    // random blocks: one 2x2 block, 4 to 7 two-cell blocks, soldiers in the remaining cells, two empty cells
+    private static long place(SplittableRandom random) {
+        int pairs = 4 + random.nextInt(4);
+        int vertical = random.nextInt(pairs + 1);
+        // left[code] = blocks of that code still to place
+        int[] left = new int[Board.SOLDIER + 1];
+        left[Board.CAO_CAO] = 1;
+        left[Board.VERTICAL] = vertical;
+        left[Board.HORIZONTAL] = pairs - vertical;
+        left[Board.SOLDIER] = BLOCK_CELLS - 2 * pairs;
+        int empty = EMPTY_CELLS;
+
+        long board = 0;
+        int used = 0;
+        int[] options = new int[Board.SOLDIER + 1];
+        while (used != (1 << Board.CELLS) - 1) {
+            int cell = Integer.numberOfTrailingZeros(~used);
+            int n = 0;
+            if (empty > 0) options[n++] = Board.EMPTY;
+            for (int code = Board.CAO_CAO; code <= Board.SOLDIER; code++) {
+                int cells = Board.cells(code, cell);
+                if (left[code] > 0 && cells != 0 && (cells & used) == 0) options[n++] = code;
+            }
+            if (n == 0) return Board.ILLEGAL;
+
+            int code = options[random.nextInt(n)];
+            if (code == Board.EMPTY) {
+                empty--;
+                used |= 1 << cell;
+            } else {
+                left[code]--;
+                board |= Board.pattern(code, cell);
+                used |= Board.cells(code, cell);
+            }
+        }
+        return board;
+    }
+}
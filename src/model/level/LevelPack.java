@@ -0,0 +1,168 @@
+package model.level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Many levels in one binary file, read through a memory mapping so any level is one record read.
+ * Written by LevelPackConverter. Layout (big-endian):
+ * <pre>
+ * int   MAGIC
+ * int   VERSION
+ * int   record count
+ * int   RECORD_BYTES
+ * int   first record, int count    one pair per Difficulty (folder), in enum order
+ * short length, UTF-8 bytes        the levels directory the pack was converted from
+ * records, sorted by folder and then number:
+ *   long  packed board
+ *   long  Zobrist hash of the board
+ *   short optimal moves, -1 when unsolvable
+ *   byte  Difficulty graded from the optimal moves, -1 when unsolvable
+ *   byte  reserved
+ *   int   number in its folder, N of the level file N.txt
+ * </pre>
+ * A level read from the pack keeps the path of the file it was converted from, so the distance database
+ * next to that file and the level file in replays work as they do for LevelCatalog levels.
+ * A pack is immutable and safe to share between threads.
+ */
+
+public final class LevelPack {
+    public static final int MAGIC = 0x4B4C5031; // "KLP1"
+    public static final int VERSION = 2;
+    public static final int RECORD_BYTES = 24;
+    public static final Path DEFAULT_FILE = Path.of("resources/levels.klp");
+    static final int HEADER_BYTES = 16 + 8 * 3;
+
+    private static LevelPack defaultPack;
+    private static boolean defaultLoaded;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final Path root;
+    private final int recordsOffset;
+    private final int[] first = new int[Difficulty.values().length];
+    private final int[] counts = new int[Difficulty.values().length];
+
+    private LevelPack(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a level pack");
+        if (buffer.getInt(4) != VERSION) throw new IllegalArgumentException("Unsupported level pack version " + buffer.getInt(4));
+        count = buffer.getInt(8);
+        int rootLength = buffer.capacity() < HEADER_BYTES + 2 ? -1 : Short.toUnsignedInt(buffer.getShort(HEADER_BYTES));
+        recordsOffset = HEADER_BYTES + 2 + rootLength;
+        if (rootLength < 0 || buffer.getInt(12) != RECORD_BYTES
+                || buffer.capacity() != recordsOffset + (long) count * RECORD_BYTES) {
+            throw new IllegalArgumentException("Corrupt level pack");
+        }
+        byte[] rootBytes = new byte[rootLength];
+        buffer.get(HEADER_BYTES + 2, rootBytes);
+        root = Path.of(new String(rootBytes, StandardCharsets.UTF_8));
+        for (Difficulty difficulty : Difficulty.values()) {
+            first[difficulty.ordinal()] = buffer.getInt(16 + 8 * difficulty.ordinal());
+            counts[difficulty.ordinal()] = buffer.getInt(20 + 8 * difficulty.ordinal());
+        }
+        this.buffer = buffer;
+    }
+
+    public static LevelPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The pack at resources/levels.klp, null when there is none (the game then uses LevelCatalog).
+     */
+    public static synchronized LevelPack getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            if (Files.isRegularFile(DEFAULT_FILE)) {
+                try {
+                    defaultPack = open(DEFAULT_FILE);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Level pack loading failed: " + DEFAULT_FILE + ", Error: " + e.getMessage());
+                }
+            }
+        }
+        return defaultPack;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int count(Difficulty difficulty) {
+        return counts[difficulty.ordinal()];
+    }
+
+    /**
+     * Record i of the whole pack.
+     */
+    public Level get(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Level " + i + " of " + count);
+        int offset = recordsOffset + i * RECORD_BYTES;
+        long board = buffer.getLong(offset);
+        int optimal = buffer.getShort(offset + 16);
+        int number = buffer.getInt(offset + 20);
+        Difficulty folder = folderOf(i);
+        String file = root.resolve(folder.getFolder()).resolve(number + ".txt").toString();
+        return new Level(folder, number, file, board, optimal);
+    }
+
+    /**
+     * The level of folder from the file N.txt, null when there is none.
+     */
+    public Level get(Difficulty difficulty, int number) {
+        // records of a folder are sorted by number
+        int low = first[difficulty.ordinal()];
+        int high = low + count(difficulty) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int found = buffer.getInt(recordsOffset + mid * RECORD_BYTES + 20);
+            if (found < number) low = mid + 1;
+            else if (found > number) high = mid - 1;
+            else return get(mid);
+        }
+        return null;
+    }
+
+    public Level random(Difficulty difficulty) {
+        int n = count(difficulty);
+        return n == 0 ? null : get(first[difficulty.ordinal()] + ThreadLocalRandom.current().nextInt(n));
+    }
+
+    /**
+     * The levels directory the pack was converted from.
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Zobrist hash stored with record i, see model.Zobrist.
+     */
+    public long getHash(int i) {
+        return buffer.getLong(recordsOffset + i * RECORD_BYTES + 8);
+    }
+
+    /**
+     * Difficulty graded from the optimal moves of record i, null when it is unsolvable.
+     */
+    public Difficulty getGrade(int i) {
+        int grade = buffer.get(recordsOffset + i * RECORD_BYTES + 18);
+        return grade < 0 ? null : Difficulty.values()[grade];
+    }
+
+    private Difficulty folderOf(int i) {
+        for (Difficulty difficulty : Difficulty.values()) {
+            int from = first[difficulty.ordinal()];
+            if (i >= from && i < from + counts[difficulty.ordinal()]) return difficulty;
+        }
+        return null;
+    }
+}
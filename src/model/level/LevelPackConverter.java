@@ -0,0 +1,84 @@
+package model.level;
+
+import model.Zobrist;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Converts the text layout (resources/levels/difficulty/N.txt) into one LevelPack file.
+ * Every level is solved while converting, so the pack carries its optimal moves and graded difficulty.
+ * Usage: LevelPackConverter [levels directory] [pack file], default resources/levels and resources/levels.klp.
+ */
+
+public final class LevelPackConverter {
+    private LevelPackConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : "resources/levels");
+        Path out = args.length > 1 ? Path.of(args[1]) : LevelPack.DEFAULT_FILE;
+
+        long begin = System.nanoTime();
+        LevelCatalog catalog = LevelCatalog.load(root);
+        int count = write(catalog, out);
+        System.out.printf("%d levels written to %s in %.1f ms%n", count, out, (System.nanoTime() - begin) / 1e6);
+    }
+
+    /**
+     * Writes every level of the catalog in folder order and returns how many there are. Levels keep the
+     * numbers of their files, so the pack can name the file each level came from.
+     */
+    public static int write(LevelCatalog catalog, Path file) throws IOException {
+        Difficulty[] folders = Difficulty.values();
+        Level[][] levels = new Level[folders.length][];
+        int count = 0;
+        for (Difficulty folder : folders) {
+            levels[folder.ordinal()] = catalog.getAll(folder).toArray(new Level[0]);
+            count += levels[folder.ordinal()].length;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(LevelPack.MAGIC);
+            out.writeInt(LevelPack.VERSION);
+            out.writeInt(count);
+            out.writeInt(LevelPack.RECORD_BYTES);
+            int first = 0;
+            for (Difficulty folder : folders) {
+                out.writeInt(first);
+                out.writeInt(levels[folder.ordinal()].length);
+                first += levels[folder.ordinal()].length;
+            }
+            byte[] root = catalog.getRoot().toString().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(root.length);
+            out.write(root);
+
+            for (Difficulty folder : folders) {
+                List<Level> list = List.of(levels[folder.ordinal()]);
+                // solving dominates the conversion, do it on all cores
+                int[] optimal = list.parallelStream()
+                        .mapToInt(level -> LevelAnalyzer.analyze(Path.of(level.getFile()), level.getBoard()).getOptimalMoves())
+                        .toArray();
+                for (int i = 0; i < list.size(); i++) {
+                    long board = list.get(i).getBoard();
+                    Difficulty grade = Difficulty.of(optimal[i]);
+                    out.writeLong(board);
+                    out.writeLong(Zobrist.hash(board));
+                    out.writeShort(optimal[i]);
+                    out.writeByte(grade == null ? -1 : grade.ordinal());
+                    out.writeByte(0);
+                    out.writeInt(list.get(i).getNumber());
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+}
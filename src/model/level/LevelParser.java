@@ -0,0 +1,90 @@
+package model.level;
+
+import model.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Strict reader for the level format: 4 lines of 5 block ids separated by spaces.
+ * Unlike LevelFrame.loadMapFromFile nothing is replaced silently; a bad file is an error that says
+ * what is wrong with it.
+ */
+
+public final class LevelParser {
+    private LevelParser() {
+    }
+
+    public static long read(Path file) throws IOException {
+        try {
+            return parse(Files.readAllLines(file));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses the lines of a level file (trailing empty lines are allowed) and checks the board with validate.
+     */
+    public static long parse(List<String> lines) {
+        int count = lines.size();
+        while (count > 0 && lines.get(count - 1).isBlank()) count--;
+        if (count != Board.HEIGHT) {
+            throw new IllegalArgumentException("Expected " + Board.HEIGHT + " lines, found " + count);
+        }
+
+        long board = 0;
+        for (int i = 0; i < Board.HEIGHT; i++) {
+            String[] values = lines.get(i).trim().split("\\s+");
+            if (values.length != Board.WIDTH) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected " + Board.WIDTH + " values, found " + values.length);
+            }
+            for (int j = 0; j < Board.WIDTH; j++) {
+                int id;
+                try {
+                    id = Integer.parseInt(values[j]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Line " + (i + 1) + ": not a number: " + values[j]);
+                }
+                if (id < Board.OBSTACLE || id > Board.SOLDIER) {
+                    throw new IllegalArgumentException("Line " + (i + 1) + ": invalid block id " + id);
+                }
+                board = Board.set(board, i, j, id);
+            }
+        }
+
+        String error = validate(board);
+        if (error != null) throw new IllegalArgumentException(error);
+        return board;
+    }
+
+    /**
+     * What is wrong with the blocks of a board, null when it is a playable level: exactly one 2x2 block,
+     * and every cell read row by row (like GamePanel.initializeGame) belongs to a complete block.
+     */
+    public static String validate(long board) {
+        int[] anchors = new int[Board.CELLS];
+        int count = Board.anchors(board, anchors);
+        int covered = 0;
+        int caoCao = 0;
+        for (int k = 0; k < count; k++) {
+            int code = Board.code(board, anchors[k]);
+            if ((board & Board.footprint(code, anchors[k])) != Board.pattern(code, anchors[k])) {
+                return "Incomplete block " + code + " at (" + anchors[k] / Board.WIDTH + "," + anchors[k] % Board.WIDTH + ")";
+            }
+            if (code == Board.CAO_CAO) caoCao++;
+            covered |= Board.cells(code, anchors[k]);
+        }
+
+        for (int i = 0; i < Board.CELLS; i++) {
+            int code = Board.code(board, i);
+            if (code != Board.EMPTY && code != Board.OBSTACLE_CODE && (covered >>> i & 1) == 0) {
+                return "Incomplete block " + code + " at (" + i / Board.WIDTH + "," + i % Board.WIDTH + ")";
+            }
+        }
+        if (caoCao != 1) return "Expected one 2x2 block, found " + caoCao;
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package model.level;
+
+import model.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes boards in the level format LevelParser and LevelFrame read.
+ */
+
+public final class LevelWriter {
+    private LevelWriter() {
+    }
+
+    public static String toText(long board) {
+        // Board.toString prints the same rows, without the last line break the shipped files do not have
+        return Board.toString(board).stripTrailing();
+    }
+
+    public static void write(Path file, long board) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Files.writeString(file, toText(board));
+    }
+}
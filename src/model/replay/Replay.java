@@ -0,0 +1,393 @@
+package model.replay;
+
+import model.Board;
+import model.Direction;
+import model.GameEngine;
+import model.MapModel;
+import model.Move;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * One recorded game, decoded and checked against the rules. Written by ReplayRecorder. Layout:
+ * <pre>
+ * int    MAGIC
+ * byte   VERSION
+ * long   wall clock time the recording started (epoch millis)
+ * long   packed start board
+ * long   packed board a restart goes back to, the level's board (version 4, before that the start)
+ * varint steps and varint millis already played (a loaded game goes on from a save)
+ * UTF    level label, level file ("" when none) and user name
+ * events, one op byte each:
+ *   bit 7   set when a varint follows with the millis since the previous event (or the start)
+ *   0-79    move of the block anchored at op / 4 in Direction op % 4
+ *   80-99   hammer on cell op - 80
+ *   100-119 obstacle on cell op - 100
+ *   UNDO, RESTART, REDO (version 3, undo of tool uses as well)
+ *   KEYFRAME, then long board and varint steps, after every KEYFRAME_INTERVAL events
+ *   END, then one byte Result, varint steps and varint seconds the game reported (version 2)
+ * </pre>
+ * A move takes one byte, or two to three with its time. The recorder flushes every event, so a file
+ * without END (the game was closed, or is still going on) reads as far as it got.
+ * Reading replays every event through a GameEngine, an illegal event is reported as a corrupt replay.
+ * Seeking starts from the nearest keyframe at or before the position, so it costs at most
+ * KEYFRAME_INTERVAL moves. A Replay is immutable and safe to share between threads.
+ */
+
+public final class Replay {
+    public static final int MAGIC = 0x4B525031; // "KRP1"
+    public static final int VERSION = 4;
+    public static final String EXTENSION = ".krp";
+    public static final int KEYFRAME_INTERVAL = 64;
+
+    static final int HAMMER = 80;
+    static final int OBSTACLE = 100;
+    static final int UNDO = 120;
+    static final int RESTART = 121;
+    static final int KEYFRAME = 122;
+    static final int END = 123;
+    static final int REDO = 124;
+    static final int TIMED = 0x80;
+
+    public enum Result { UNFINISHED, WON, TIMED_OUT, ABANDONED }
+
+    public enum Kind { MOVE, UNDO, REDO, HAMMER, OBSTACLE, RESTART }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final long startedAt;
+    private final long start;
+    private final long restart;
+    private final int initialSteps;
+    private final long initialMillis;
+    private final String level;
+    private final String levelFile;
+    private final String user;
+    private final Result result;
+    private final int claimedSteps;
+    private final long claimedSeconds;
+    private final int count;
+    private final byte[] kinds;
+    // the history entry of every event: the move or tool use made, undone or redone
+    private final int[] moves;
+    // millis since the recording started
+    private final long[] times;
+    private final long[] keyframes;
+    private final int[] keyframeSteps;
+    // time on the game clock is times[i] - origin, origin changes on a restart
+    private final long[] keyframeOrigins;
+
+    private Replay(long startedAt, long start, long restart, int initialSteps, long initialMillis, String level, String levelFile,
+                   String user, Result result, int claimedSteps, long claimedSeconds, int count, byte[] kinds, int[] moves, long[] times,
+                   long[] keyframes, int[] keyframeSteps, long[] keyframeOrigins) {
+        this.startedAt = startedAt;
+        this.start = start;
+        this.restart = restart;
+        this.initialSteps = initialSteps;
+        this.initialMillis = initialMillis;
+        this.level = level;
+        this.levelFile = levelFile;
+        this.user = user;
+        this.result = result;
+        this.claimedSteps = claimedSteps;
+        this.claimedSeconds = claimedSeconds;
+        this.count = count;
+        this.kinds = kinds;
+        this.moves = moves;
+        this.times = times;
+        this.keyframes = keyframes;
+        this.keyframeSteps = keyframeSteps;
+        this.keyframeOrigins = keyframeOrigins;
+    }
+
+    public static Replay read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return read(in);
+        }
+    }
+
+    public static Replay read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) throw new IOException("Not a replay");
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) throw new IOException("Unsupported replay version " + version);
+        long startedAt = in.readLong();
+        long start = in.readLong();
+        if (!Board.isValid(start)) throw new IOException("Corrupt replay: invalid start board");
+        long restart = version >= 4 ? in.readLong() : start;
+        if (!Board.isValid(restart)) throw new IOException("Corrupt replay: invalid restart board");
+        int initialSteps = (int) readVarint(in);
+        long initialMillis = readVarint(in);
+        String level = in.readUTF();
+        String levelFile = in.readUTF();
+        String user = in.readUTF();
+
+        // a game loaded from a save starts on the saved board, but restarts on the level's
+        MapModel model = new MapModel(restart, level);
+        model.setState(start);
+        GameEngine engine = new GameEngine(model, () -> 0L);
+        engine.setSteps(initialSteps);
+
+        int count = 0;
+        byte[] kinds = new byte[256];
+        int[] moves = new int[256];
+        long[] times = new long[256];
+        long[] keyframes = new long[4];
+        int[] keyframeSteps = new int[4];
+        long[] keyframeOrigins = new long[4];
+        keyframes[0] = start;
+        keyframeSteps[0] = initialSteps;
+        keyframeOrigins[0] = -initialMillis;
+        long origin = -initialMillis;
+        long time = 0;
+        Result result = Result.UNFINISHED;
+        int claimedSteps = -1;
+        long claimedSeconds = -1;
+
+        while (true) {
+            int op = in.read();
+            if (op < 0) break;
+            long delta = 0;
+            try {
+                if ((op & TIMED) != 0) delta = readVarint(in);
+                op &= ~TIMED;
+                if (op == KEYFRAME) {
+                    long board = in.readLong();
+                    int steps = (int) readVarint(in);
+                    if (board != model.getState() || steps != engine.getSteps()) {
+                        throw new IOException("Corrupt replay: keyframe after event " + count + " does not match");
+                    }
+                    continue;
+                }
+                if (op == END) {
+                    int ordinal = in.readUnsignedByte();
+                    if (ordinal >= Result.values().length) throw new IOException("Corrupt replay: unknown result " + ordinal);
+                    result = Result.values()[ordinal];
+                    if (version >= 2) {
+                        claimedSteps = (int) readVarint(in);
+                        claimedSeconds = readVarint(in);
+                    }
+                    break;
+                }
+            } catch (EOFException e) {
+                // the game is still being recorded or the last write was cut off
+                break;
+            }
+            time += delta;
+
+            Kind kind;
+            int move;
+            if (op < HAMMER) {
+                kind = Kind.MOVE;
+                int from = op >>> 2;
+                move = engine.move(from / Board.WIDTH, from % Board.WIDTH, DIRECTIONS[op & 3]);
+            } else if (op < OBSTACLE) {
+                kind = Kind.HAMMER;
+                int index = op - HAMMER;
+                move = engine.hammer(index / Board.WIDTH, index % Board.WIDTH) ? Move.hammer(index) : Move.NONE;
+            } else if (op < UNDO) {
+                kind = Kind.OBSTACLE;
+                int index = op - OBSTACLE;
+                move = engine.placeObstacle(index / Board.WIDTH, index % Board.WIDTH) ? Move.obstacle(index) : Move.NONE;
+            } else if (op == UNDO) {
+                kind = Kind.UNDO;
+                move = engine.undo();
+            } else if (op == REDO) {
+                kind = Kind.REDO;
+                move = engine.redo();
+            } else if (op == RESTART) {
+                kind = Kind.RESTART;
+                engine.restart();
+                origin = time;
+                move = Move.NONE;
+            } else {
+                throw new IOException("Corrupt replay: unknown event " + op);
+            }
+            if (move == Move.NONE && kind != Kind.RESTART) {
+                throw new IOException("Corrupt replay: event " + count + " (" + kind + ") breaks the rules");
+            }
+            // before version 3 tool uses were not in the history, an undo took back the last block move
+            if (version < 3 && (kind == Kind.HAMMER || kind == Kind.OBSTACLE)) engine.getHistory().undo();
+
+            if (count == kinds.length) {
+                kinds = Arrays.copyOf(kinds, count << 1);
+                moves = Arrays.copyOf(moves, count << 1);
+                times = Arrays.copyOf(times, count << 1);
+            }
+            kinds[count] = (byte) kind.ordinal();
+            moves[count] = move;
+            times[count] = time;
+            count++;
+
+            if (count % KEYFRAME_INTERVAL == 0) {
+                int k = count / KEYFRAME_INTERVAL;
+                if (k == keyframes.length) {
+                    keyframes = Arrays.copyOf(keyframes, k << 1);
+                    keyframeSteps = Arrays.copyOf(keyframeSteps, k << 1);
+                    keyframeOrigins = Arrays.copyOf(keyframeOrigins, k << 1);
+                }
+                keyframes[k] = model.getState();
+                keyframeSteps[k] = engine.getSteps();
+                keyframeOrigins[k] = origin;
+            }
+        }
+
+        return new Replay(startedAt, start, restart, initialSteps, initialMillis, level, levelFile.isEmpty() ? null : levelFile,
+                user, result, claimedSteps, claimedSeconds, count, kinds, moves, times, keyframes, keyframeSteps, keyframeOrigins);
+    }
+
+    public long getStartedAt() { return startedAt; }
+
+    public long getStart() { return start; }
+
+    /**
+     * The board a restart goes back to: the level's board, which differs from the start when the game
+     * was loaded from a save.
+     */
+    public long getRestart() { return restart; }
+
+    public int getInitialSteps() { return initialSteps; }
+
+    public long getInitialMillis() { return initialMillis; }
+
+    public String getLevel() { return level; }
+
+    /**
+     * The level file the game started from, null for saved or default boards.
+     */
+    public String getLevelFile() { return levelFile; }
+
+    public String getUser() { return user; }
+
+    public Result getResult() { return result; }
+
+    /**
+     * The step count the game showed when the replay ended, -1 when it did not end or is version 1.
+     */
+    public int getClaimedSteps() { return claimedSteps; }
+
+    /**
+     * The time in seconds the game showed when the replay ended, -1 when it did not end or is version 1.
+     */
+    public long getClaimedSeconds() { return claimedSeconds; }
+
+    /**
+     * Index of the last restart, -1 when the game was never restarted.
+     */
+    public int getLastRestart() {
+        for (int i = count - 1; i >= 0; i--) {
+            if (kinds[i] == Kind.RESTART.ordinal()) return i;
+        }
+        return -1;
+    }
+
+    public int getEventCount() { return count; }
+
+    public Kind getKind(int event) {
+        checkEvent(event);
+        return KINDS[kinds[event]];
+    }
+
+    /**
+     * The move or tool use the event made, undid (UNDO) or made again (REDO), Move.NONE for a restart.
+     */
+    public int getMove(int event) {
+        checkEvent(event);
+        return moves[event];
+    }
+
+    /**
+     * Millis from the start of the recording to the event.
+     */
+    public long getTime(int event) {
+        checkEvent(event);
+        return times[event];
+    }
+
+    /**
+     * The board after the first position events, getBoard(0) is the start.
+     */
+    public long getBoard(int position) {
+        checkPosition(position);
+        int k = position / KEYFRAME_INTERVAL;
+        long board = keyframes[k];
+        for (int i = k * KEYFRAME_INTERVAL; i < position; i++) {
+            board = switch (KINDS[kinds[i]]) {
+                case RESTART -> restart;
+                case UNDO -> Move.revert(board, moves[i]);
+                default -> Move.apply(board, moves[i]);
+            };
+        }
+        return board;
+    }
+
+    /**
+     * The step counter after the first position events, as the game showed it.
+     */
+    public int getSteps(int position) {
+        checkPosition(position);
+        int k = position / KEYFRAME_INTERVAL;
+        int steps = keyframeSteps[k];
+        for (int i = k * KEYFRAME_INTERVAL; i < position; i++) {
+            switch (KINDS[kinds[i]]) {
+                case MOVE -> steps++;
+                case UNDO -> steps -= Move.isTool(moves[i]) ? 0 : 1;
+                case REDO -> steps += Move.isTool(moves[i]) ? 0 : 1;
+                case RESTART -> steps = 0;
+                default -> { }
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Millis on the game clock after the first position events, counting the time played before a
+     * saved game was loaded and starting over on a restart.
+     */
+    public long getGameMillis(int position) {
+        checkPosition(position);
+        int k = position / KEYFRAME_INTERVAL;
+        long origin = keyframeOrigins[k];
+        for (int i = k * KEYFRAME_INTERVAL; i < position; i++) {
+            if (kinds[i] == Kind.RESTART.ordinal()) origin = times[i];
+        }
+        return position == 0 ? initialMillis : times[position - 1] - origin;
+    }
+
+    public long getFinalBoard() {
+        return getBoard(count);
+    }
+
+    private void checkEvent(int event) {
+        if (event < 0 || event >= count) throw new IndexOutOfBoundsException("Event " + event + " of " + count);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position > count) throw new IndexOutOfBoundsException("Position " + position + " of " + count);
+    }
+
+    /**
+     * Writes value (not negative) in 7 bit groups, low first; small numbers take one byte.
+     */
+    public static void writeVarint(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarint(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupt replay: varint too long");
+    }
+}
@@ -0,0 +1,180 @@
+package model.replay;
+
+import model.GameEngine;
+import model.GameRecorder;
+import model.Move;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes the game a GameEngine plays as a Replay while it is played. The engine reports every move,
+ * undo, tool use and restart (see GameEngine.addRecorder), the recorder takes the time from the
+ * engine's clock and flushes each event, so a crash loses at most the event being written.
+ * A failed write stops the recording with a message instead of disturbing the game.
+ */
+
+public class ReplayRecorder implements GameRecorder, Closeable {
+    public static final Path DIRECTORY = Path.of("replays");
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final GameEngine engine;
+    private final Path file;
+    private DataOutputStream out;
+    private long lastTime;
+    private int events;
+    private boolean finished;
+
+    public ReplayRecorder(OutputStream out, GameEngine engine, String user) throws IOException {
+        this(out, engine, user, null);
+    }
+
+    private ReplayRecorder(OutputStream out, GameEngine engine, String user, Path file) throws IOException {
+        this.engine = engine;
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 512));
+        this.lastTime = engine.now();
+
+        String levelFile = engine.getModel().getLevelFile();
+        this.out.writeInt(Replay.MAGIC);
+        this.out.writeByte(Replay.VERSION);
+        this.out.writeLong(System.currentTimeMillis());
+        this.out.writeLong(engine.getModel().getState());
+        this.out.writeLong(engine.getModel().getInitialState());
+        Replay.writeVarint(this.out, engine.getSteps());
+        Replay.writeVarint(this.out, Math.max(0, engine.getElapsedMillis()));
+        this.out.writeUTF(engine.getModel().getLevel());
+        this.out.writeUTF(levelFile == null ? "" : levelFile);
+        this.out.writeUTF(user);
+        this.out.flush();
+    }
+
+    /**
+     * Starts a recording in replays/&lt;user&gt;/ named after the current time, and attaches it to the engine.
+     */
+    public static ReplayRecorder create(GameEngine engine, String user) throws IOException {
+        Path dir = DIRECTORY.resolve(user);
+        Files.createDirectories(dir);
+        Path file = dir.resolve(LocalDateTime.now().format(FILE_NAME) + Replay.EXTENSION);
+        ReplayRecorder recorder = new ReplayRecorder(Files.newOutputStream(file), engine, user, file);
+        engine.addRecorder(recorder);
+        return recorder;
+    }
+
+    @Override
+    public void moved(int move) {
+        write(Move.from(move) << 2 | Move.direction(move).ordinal());
+    }
+
+    @Override
+    public void undone() {
+        write(Replay.UNDO);
+    }
+
+    @Override
+    public void redone() {
+        write(Replay.REDO);
+    }
+
+    @Override
+    public void toolUsed(int move) {
+        int base = Move.code(move) == Move.code(Move.hammer(0)) ? Replay.HAMMER : Replay.OBSTACLE;
+        write(base + Move.from(move));
+    }
+
+    @Override
+    public void restarted() {
+        write(Replay.RESTART);
+    }
+
+    /**
+     * Marks how the game ended with the engine's steps and time, later events are not recorded.
+     */
+    public void finish(Replay.Result result) {
+        finish(result, engine.getSteps(), engine.getActualTime());
+    }
+
+    /**
+     * Marks how the game ended with the steps and seconds the game reports, which ReplayVerifier
+     * checks against the replayed moves.
+     */
+    public void finish(Replay.Result result, int steps, long seconds) {
+        if (out == null || finished) return;
+        try {
+            writeOp(Replay.END);
+            out.writeByte(result.ordinal());
+            Replay.writeVarint(out, Math.max(0, steps));
+            Replay.writeVarint(out, Math.max(0, seconds));
+            out.flush();
+            finished = true;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Ends the recording as abandoned unless finish was called. A recording without events is deleted.
+     */
+    @Override
+    public void close() {
+        engine.removeRecorder(this);
+        if (out == null) return;
+        if (events > 0) finish(Replay.Result.ABANDONED);
+        try {
+            if (out != null) out.close();
+            if (events == 0 && file != null) Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Replay recording failed: " + file + ", Error: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    /**
+     * The file written to, null when recording to a stream.
+     */
+    public Path getFile() { return file; }
+
+    public int getEventCount() { return events; }
+
+    public boolean isFinished() { return finished; }
+
+    private void write(int op) {
+        if (out == null || finished) return;
+        try {
+            writeOp(op);
+            events++;
+            if (events % Replay.KEYFRAME_INTERVAL == 0) {
+                out.writeByte(Replay.KEYFRAME);
+                out.writeLong(engine.getModel().getState());
+                Replay.writeVarint(out, engine.getSteps());
+            }
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeOp(int op) throws IOException {
+        long now = engine.now();
+        long delta = Math.max(0, now - lastTime);
+        lastTime = now;
+        if (delta == 0) {
+            out.writeByte(op);
+        } else {
+            out.writeByte(op | Replay.TIMED);
+            Replay.writeVarint(out, delta);
+        }
+    }
+
+    private void fail(IOException e) {
+        System.err.println("Replay recording stopped: " + file + ", Error: " + e.getMessage());
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+        out = null;
+    }
+}
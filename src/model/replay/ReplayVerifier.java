@@ -0,0 +1,270 @@
+package model.replay;
+
+import model.Board;
+import model.GameEngine;
+import model.level.Difficulty;
+import model.level.Level;
+import model.level.LevelCatalog;
+import model.level.LevelPack;
+import model.solver.LongHashSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Checks a claimed result against its replay: Replay.read plays every event through the rules, then
+ * the verifier checks that the game was won, that the steps and the time the game reported match the
+ * replayed ones, that the time limit held, and that the game started from a known level.
+ * Only VALID results go into best scores (GameController.checkWinCondition).
+ * verifyAll checks a whole directory on virtual threads and writes one verdict line per replay:
+ *   java model.replay.ReplayVerifier [directory] [verdict file]
+ * defaults to replays/ and replays/verdicts.tsv. A verifier is thread-safe.
+ */
+
+public class ReplayVerifier {
+    public static final String VERDICT_FILE = "verdicts.tsv";
+    // the time is shown in whole seconds and read a moment after the winning move
+    static final long SECONDS_TOLERANCE = 1;
+    // keeps thousands of virtual threads from opening thousands of files at once
+    private static final int MAX_OPEN_FILES = 64;
+
+    private static ReplayVerifier defaultVerifier;
+
+    public enum Status {
+        // the claim matches the replay
+        VALID,
+        // the replay breaks the rules or does not back the claim
+        INVALID,
+        // the replay is sound but cannot prove the whole game, e.g. it goes on from a save
+        UNVERIFIABLE,
+        // the game was not won, so nothing is claimed
+        UNFINISHED
+    }
+
+    public static final class Verdict {
+        private final String file;
+        private final Status status;
+        private final int steps;
+        private final long seconds;
+        private final int events;
+        private final String reason;
+
+        Verdict(String file, Status status, int steps, long seconds, int events, String reason) {
+            this.file = file;
+            this.status = status;
+            this.steps = steps;
+            this.seconds = seconds;
+            this.events = events;
+            this.reason = reason;
+        }
+
+        public String getFile() { return file; }
+
+        public Status getStatus() { return status; }
+
+        public boolean isValid() { return status == Status.VALID; }
+
+        /**
+         * Steps by the replay, -1 when it could not be read.
+         */
+        public int getSteps() { return steps; }
+
+        /**
+         * Game time in seconds by the replay, -1 when it could not be read.
+         */
+        public long getSeconds() { return seconds; }
+
+        public int getEvents() { return events; }
+
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return file + "\t" + status + "\t" + steps + "\t" + seconds + "\t" + events + "\t" + reason;
+        }
+    }
+
+    public static final class Summary {
+        private final int[] counts = new int[Status.values().length];
+        private final long events;
+        private final long nanos;
+
+        Summary(List<Verdict> verdicts, long nanos) {
+            long events = 0;
+            for (Verdict verdict : verdicts) {
+                counts[verdict.getStatus().ordinal()]++;
+                events += verdict.getEvents();
+            }
+            this.events = events;
+            this.nanos = nanos;
+        }
+
+        public int count(Status status) { return counts[status.ordinal()]; }
+
+        public int getReplays() {
+            int sum = 0;
+            for (int count : counts) sum += count;
+            return sum;
+        }
+
+        public long getEvents() { return events; }
+
+        public double getReplaysPerSecond() { return getReplays() * 1e9 / Math.max(1, nanos); }
+
+        public double getEventsPerSecond() { return events * 1e9 / Math.max(1, nanos); }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(getReplays()).append(" replays (");
+            for (Status status : Status.values()) {
+                if (status.ordinal() > 0) sb.append(", ");
+                sb.append(count(status)).append(' ').append(status.name().toLowerCase(Locale.ROOT));
+            }
+            sb.append(String.format(Locale.ROOT, "), %d events in %.2f s: %.0f replays/s, %.0f events/s",
+                    events, nanos / 1e9, getReplaysPerSecond(), getEventsPerSecond()));
+            return sb.toString();
+        }
+    }
+
+    private final LongHashSet levels;
+
+    /**
+     * A verifier accepting games that start from one of these boards or their mirrors.
+     */
+    public ReplayVerifier(long[] levelBoards) {
+        levels = new LongHashSet(levelBoards.length);
+        for (long board : levelBoards) levels.add(Board.canonical(board));
+    }
+
+    /**
+     * A verifier for the levels the game ships, from LevelCatalog and the level pack.
+     */
+    public static synchronized ReplayVerifier getDefault() {
+        if (defaultVerifier == null) {
+            List<Long> boards = new ArrayList<>();
+            for (Difficulty difficulty : Difficulty.values()) {
+                for (Level level : LevelCatalog.getDefault().getAll(difficulty)) boards.add(level.getBoard());
+            }
+            LevelPack pack = LevelPack.getDefault();
+            if (pack != null) {
+                for (int i = 0; i < pack.size(); i++) boards.add(pack.get(i).getBoard());
+            }
+            defaultVerifier = new ReplayVerifier(boards.stream().mapToLong(Long::longValue).toArray());
+        }
+        return defaultVerifier;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dir = args.length > 0 ? Path.of(args[0]) : ReplayRecorder.DIRECTORY;
+        Path verdicts = args.length > 1 ? Path.of(args[1]) : dir.resolve(VERDICT_FILE);
+        Summary summary = getDefault().verifyAll(dir, verdicts);
+        System.out.println(summary);
+        System.out.println("Verdicts written to " + verdicts);
+    }
+
+    /**
+     * Checks the result the replay file itself claims.
+     */
+    public Verdict verify(Path file) {
+        try {
+            Replay replay = Replay.read(file);
+            return verify(file.toString(), replay, replay.getClaimedSteps(), replay.getClaimedSeconds());
+        } catch (IOException | RuntimeException e) {
+            return new Verdict(file.toString(), Status.INVALID, -1, -1, 0, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks that the replay in file backs a win in steps and seconds.
+     */
+    public Verdict verify(Path file, int steps, long seconds) {
+        try {
+            return verify(file.toString(), Replay.read(file), steps, seconds);
+        } catch (IOException | RuntimeException e) {
+            return new Verdict(file.toString(), Status.INVALID, -1, -1, 0, String.valueOf(e.getMessage()));
+        }
+    }
+
+    public Verdict verify(String name, Replay replay, int claimedSteps, long claimedSeconds) {
+        int count = replay.getEventCount();
+        int steps = replay.getSteps(count);
+        long millis = replay.getGameMillis(count);
+        long seconds = millis / 1000;
+
+        Status status;
+        String reason;
+        if (replay.getResult() != Replay.Result.WON) {
+            status = Status.UNFINISHED;
+            reason = "game " + replay.getResult().name().toLowerCase(Locale.ROOT);
+        } else if (!Board.isWin(replay.getFinalBoard())) {
+            status = Status.INVALID;
+            reason = "claims a win on an unsolved board";
+        } else if (claimedSteps != steps) {
+            status = Status.INVALID;
+            reason = "claims " + claimedSteps + " steps, replay has " + steps;
+        } else if (Math.abs(claimedSeconds - seconds) > SECONDS_TOLERANCE) {
+            status = Status.INVALID;
+            reason = "claims " + claimedSeconds + " s, replay took " + seconds + " s";
+        } else if (millis > GameEngine.GAME_DURATION_MILLIS) {
+            status = Status.INVALID;
+            reason = "won after the time was up";
+        } else if (replay.getLastRestart() < 0 && (replay.getInitialSteps() > 0 || replay.getInitialMillis() > 0)) {
+            status = Status.UNVERIFIABLE;
+            reason = "continued from a save";
+        } else if (!levels.contains(Board.canonical(replay.getLastRestart() >= 0 ? replay.getRestart() : replay.getStart()))) {
+            status = Status.UNVERIFIABLE;
+            reason = "does not start from a known level";
+        } else {
+            status = Status.VALID;
+            reason = "";
+        }
+        return new Verdict(name, status, steps, seconds, count, reason);
+    }
+
+    /**
+     * Verifies every replay under dir, each on its own virtual thread, and writes the verdicts sorted
+     * by file to verdictFile (tab separated: file, status, steps, seconds, events, reason).
+     */
+    public Summary verifyAll(Path dir, Path verdictFile) throws IOException, InterruptedException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith(Replay.EXTENSION)).sorted().toList();
+        }
+
+        Verdict[] verdicts = new Verdict[files.size()];
+        Semaphore open = new Semaphore(MAX_OPEN_FILES);
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < files.size(); i++) {
+                int index = i;
+                executor.submit(() -> {
+                    open.acquireUninterruptibly();
+                    try {
+                        verdicts[index] = verify(files.get(index));
+                    } finally {
+                        open.release();
+                    }
+                });
+            }
+        }
+        long nanos = System.nanoTime() - begin;
+        if (Thread.interrupted()) throw new InterruptedException();
+
+        List<Verdict> list = List.of(verdicts);
+        List<String> lines = new ArrayList<>(list.size() + 1);
+        lines.add("#file\tstatus\tsteps\tseconds\tevents\treason");
+        for (Verdict verdict : list) lines.add(verdict.toString());
+        if (verdictFile.getParent() != null) Files.createDirectories(verdictFile.getParent());
+        Files.write(verdictFile, lines);
+        return new Summary(list, nanos);
+    }
+}
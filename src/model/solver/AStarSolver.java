@@ -0,0 +1,139 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * A* over packed boards with the Heuristic lower bound. The heuristic is consistent, so a board
+ * is final once it leaves the open list and the first goal taken out is a minimum-step solution.
+ * Boards whose heuristic says they can never be solved are not expanded at all.
+ * A board and its mirror share one node (see Board.canonical), the heuristic is the same for both.
+ */
+
+public class AStarSolver implements Solver {
+    // open list entries pack f, g and the node: f in bits 44-55, (MAX_G - g) in bits 32-43, node in bits 0-31
+    private static final int MAX_G = 0xFFF;
+
+    private final MoveGenerator.Metric metric;
+    private final int[] anchors = new int[Board.CELLS];
+    private final int[] successors = new int[MoveGenerator.MAX_MOVES];
+    private final LongIntHashMap index = new LongIntHashMap(1 << 14);
+    private final LongMinHeap open = new LongMinHeap();
+    private long[] states = new long[1 << 12];
+    private int[] costs = new int[1 << 12];
+    private int[] estimates = new int[1 << 12];
+    private int[] parents = new int[1 << 12];
+    private int[] moves = new int[1 << 12];
+    private boolean[] closed = new boolean[1 << 12];
+    private int size;
+
+    public AStarSolver() {
+        this(MoveGenerator.Metric.STEP);
+    }
+
+    public AStarSolver(MoveGenerator.Metric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public String getName() {
+        return metric == MoveGenerator.Metric.STEP ? "A*" : "A* (" + metric + ")";
+    }
+
+    @Override
+    public Solution solve(long start, SearchLimits limits, CancellationToken token) {
+        long begin = System.nanoTime();
+        index.clear();
+        open.clear();
+        size = 0;
+
+        int h = Heuristic.estimate(start, metric, anchors);
+        if (h == Heuristic.UNSOLVABLE) {
+            return Solution.unsolved(Solution.Status.UNSOLVABLE, start, 1, System.nanoTime() - begin);
+        }
+        push(add(start, 0, h, -1, Move.NONE));
+
+        long expanded = 0;
+        while (!open.isEmpty()) {
+            long entry = open.pop();
+            int node = (int) entry;
+            // a board can be in the open list more than once, only its cheapest entry counts
+            if (closed[node] || MAX_G - (int) (entry >>> 32 & MAX_G) != Math.min(costs[node], MAX_G)) continue;
+            closed[node] = true;
+
+            if (expanded++ % SearchLimits.CHECK_INTERVAL == 0) {
+                Solution.Status stop = limits.check(token, expanded, begin);
+                if (stop != null) return Solution.unsolved(stop, start, size, System.nanoTime() - begin);
+            }
+
+            long state = states[node];
+            if (Board.isWin(state)) return build(node, begin);
+
+            int cost = costs[node] + 1;
+            int count = MoveGenerator.generate(state, metric, successors);
+            for (int k = 0; k < count; k++) {
+                long next = Move.apply(state, successors[k]);
+                int known = index.get(Board.canonical(next), -1);
+                if (known < 0) {
+                    int estimate = Heuristic.estimate(next, metric, anchors);
+                    int added = add(next, cost, estimate, node, successors[k]);
+                    // kept in the index so it is not estimated again, but never opened
+                    if (estimate == Heuristic.UNSOLVABLE) closed[added] = true;
+                    else push(added);
+                } else if (!closed[known] && cost < costs[known]) {
+                    // the node may hold the mirror, keep the board this parent really leads to
+                    states[known] = next;
+                    costs[known] = cost;
+                    parents[known] = node;
+                    moves[known] = successors[k];
+                    push(known);
+                }
+            }
+        }
+
+        return Solution.unsolved(Solution.Status.UNSOLVABLE, start, size, System.nanoTime() - begin);
+    }
+
+    private int add(long state, int cost, int estimate, int parent, int move) {
+        if (size == states.length) {
+            int capacity = size << 1;
+            states = Arrays.copyOf(states, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            estimates = Arrays.copyOf(estimates, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+        states[size] = state;
+        costs[size] = cost;
+        estimates[size] = estimate;
+        parents[size] = parent;
+        moves[size] = move;
+        closed[size] = false;
+        index.put(Board.canonical(state), size);
+        return size++;
+    }
+
+    private void push(int node) {
+        long g = Math.min(costs[node], MAX_G);
+        long f = Math.min(costs[node] + (long) estimates[node], MAX_G);
+        open.push(f << 44 | (MAX_G - g) << 32 | node);
+    }
+
+    private Solution build(int node, long begin) {
+        int length = costs[node];
+        long[] path = new long[length + 1];
+        int[] pathMoves = new int[length];
+        int n = node;
+        for (int i = length; i > 0; i--) {
+            path[i] = states[n];
+            pathMoves[i - 1] = moves[n];
+            n = parents[n];
+        }
+        path[0] = states[n];
+        return new Solution(Solution.Status.SOLVED, path, pathMoves, size, System.nanoTime() - begin);
+    }
+}
@@ -0,0 +1,102 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search over packed boards. Moves come from MoveGenerator; with the default STEP metric
+ * a move is one block going one cell, the same step the game counts, so the first goal board found gives
+ * a minimum-step solution.
+ * The goal is the one GameController checks: the 2x2 block at (Board.WIN_ROW, Board.WIN_COL).
+ * A board and its mirror are visited only once (see Board.canonical); the queue keeps the real boards,
+ * so the path stays a legal move sequence.
+ * A solver reuses its queue and visited set between calls and must not be shared by threads.
+ */
+
+public class BfsSolver implements Solver {
+    private final MoveGenerator.Metric metric;
+    private final int[] successors = new int[MoveGenerator.MAX_MOVES];
+    private final LongHashSet visited = new LongHashSet(1 << 16);
+    private long[] queue = new long[1 << 12];
+    private int[] parents = new int[1 << 12];
+    private int[] moves = new int[1 << 12];
+    private int tail;
+
+    public BfsSolver() {
+        this(MoveGenerator.Metric.STEP);
+    }
+
+    public BfsSolver(MoveGenerator.Metric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public String getName() {
+        return metric == MoveGenerator.Metric.STEP ? "BFS" : "BFS (" + metric + ")";
+    }
+
+    public Solution solve(int[][] matrix) {
+        return solve(Board.fromMatrix(matrix));
+    }
+
+    @Override
+    public Solution solve(long start, SearchLimits limits, CancellationToken token) {
+        long begin = System.nanoTime();
+        visited.clear();
+        tail = 0;
+
+        visited.add(Board.canonical(start));
+        push(start, -1, Move.NONE);
+        if (Board.isWin(start)) return build(0, begin);
+
+        for (int head = 0; head < tail; head++) {
+            if (head % SearchLimits.CHECK_INTERVAL == 0) {
+                Solution.Status stop = limits.check(token, head, begin);
+                if (stop != null) return Solution.unsolved(stop, start, visited.size(), System.nanoTime() - begin);
+            }
+
+            long state = queue[head];
+            int count = MoveGenerator.generate(state, metric, successors);
+            for (int k = 0; k < count; k++) {
+                long next = Move.apply(state, successors[k]);
+                if (!visited.add(Board.canonical(next))) continue;
+                push(next, head, successors[k]);
+                if (Board.isWin(next)) return build(tail - 1, begin);
+            }
+        }
+
+        return Solution.unsolved(Solution.Status.UNSOLVABLE, start, visited.size(), System.nanoTime() - begin);
+    }
+
+    private void push(long state, int parent, int move) {
+        if (tail == queue.length) {
+            int capacity = queue.length << 1;
+            queue = Arrays.copyOf(queue, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+        }
+        queue[tail] = state;
+        parents[tail] = parent;
+        moves[tail] = move;
+        tail++;
+    }
+
+    private Solution build(int node, long begin) {
+        int length = 0;
+        for (int n = node; parents[n] >= 0; n = parents[n]) length++;
+
+        long[] path = new long[length + 1];
+        int[] pathMoves = new int[length];
+        int n = node;
+        for (int i = length; i > 0; i--) {
+            path[i] = queue[n];
+            pathMoves[i - 1] = moves[n];
+            n = parents[n];
+        }
+        path[0] = queue[n];
+        return new Solution(Solution.Status.SOLVED, path, pathMoves, visited.size(), System.nanoTime() - begin);
+    }
+}
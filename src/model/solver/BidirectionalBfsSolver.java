@@ -0,0 +1,165 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search from the start and, at the same time, backwards from every goal board
+ * (see GoalStates). Moves are reversible, so the backward half uses the same moves.
+ * Each round expands one whole layer of the smaller side; the shortest join found in that layer
+ * is a minimum-step solution. Both sides key boards by Board.canonical, so they may meet on a board
+ * and its mirror.
+ */
+
+public class BidirectionalBfsSolver implements Solver {
+    private final MoveGenerator.Metric metric;
+    private final int[] successors = new int[MoveGenerator.MAX_MOVES];
+    private final Side forward = new Side();
+    private final Side backward = new Side();
+
+    public BidirectionalBfsSolver() {
+        this(MoveGenerator.Metric.STEP);
+    }
+
+    public BidirectionalBfsSolver(MoveGenerator.Metric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public String getName() {
+        return metric == MoveGenerator.Metric.STEP ? "Bidirectional BFS" : "Bidirectional BFS (" + metric + ")";
+    }
+
+    @Override
+    public Solution solve(long start, SearchLimits limits, CancellationToken token) {
+        long begin = System.nanoTime();
+        forward.clear();
+        backward.clear();
+
+        forward.add(start, -1, Move.NONE, 0);
+        if (Board.isWin(start)) return build(0, -1, begin);
+        for (long goal : GoalStates.of(start)) backward.add(goal, -1, Move.NONE, 0);
+
+        long expanded = 0;
+        while (forward.hasFrontier() && backward.hasFrontier()) {
+            boolean fromStart = forward.frontierSize() <= backward.frontierSize();
+            Side side = fromStart ? forward : backward;
+            Side other = fromStart ? backward : forward;
+
+            int bestLength = Integer.MAX_VALUE;
+            int bestNode = -1;
+            int bestOther = -1;
+            int layerEnd = side.size;
+            for (int node = side.layerStart; node < layerEnd; node++) {
+                if (expanded++ % SearchLimits.CHECK_INTERVAL == 0) {
+                    Solution.Status stop = limits.check(token, expanded, begin);
+                    if (stop != null) return Solution.unsolved(stop, start, explored(), System.nanoTime() - begin);
+                }
+
+                long state = side.states[node];
+                int depth = side.depths[node] + 1;
+                int count = MoveGenerator.generate(state, metric, successors);
+                for (int k = 0; k < count; k++) {
+                    long next = Move.apply(state, successors[k]);
+                    long key = Board.canonical(next);
+                    if (side.index.containsKey(key)) continue;
+                    int added = side.add(next, node, successors[k], depth);
+
+                    int met = other.index.get(key, -1);
+                    if (met >= 0 && depth + other.depths[met] < bestLength) {
+                        bestLength = depth + other.depths[met];
+                        bestNode = added;
+                        bestOther = met;
+                    }
+                }
+            }
+            side.layerStart = layerEnd;
+
+            if (bestNode >= 0) {
+                return fromStart ? build(bestNode, bestOther, begin) : build(bestOther, bestNode, begin);
+            }
+        }
+
+        return Solution.unsolved(Solution.Status.UNSOLVABLE, start, explored(), System.nanoTime() - begin);
+    }
+
+    private int explored() {
+        return forward.size + backward.size;
+    }
+
+    // joins the forward chain ending at forwardNode with the backward chain starting at backwardNode
+    private Solution build(int forwardNode, int backwardNode, long begin) {
+        int head = 0;
+        for (int n = forwardNode; forward.parents[n] >= 0; n = forward.parents[n]) head++;
+        int tail = 0;
+        if (backwardNode >= 0) {
+            for (int n = backwardNode; backward.parents[n] >= 0; n = backward.parents[n]) tail++;
+        }
+
+        long[] path = new long[head + tail + 1];
+        int[] moves = new int[head + tail];
+        int n = forwardNode;
+        for (int i = head; i > 0; i--) {
+            path[i] = forward.states[n];
+            moves[i - 1] = forward.moves[n];
+            n = forward.parents[n];
+        }
+        path[0] = forward.states[n];
+
+        // the sides can meet on mirrored boards, then the backward chain is mirrored as well
+        boolean mirrored = backwardNode >= 0 && backward.states[backwardNode] != path[head];
+        n = backwardNode;
+        for (int i = head; i < head + tail; i++) {
+            // the backward side stored the move from the parent, closer to the goal, to this board
+            int move = Move.inverse(backward.moves[n]);
+            n = backward.parents[n];
+            moves[i] = mirrored ? Move.mirror(move) : move;
+            path[i + 1] = mirrored ? Board.mirror(backward.states[n]) : backward.states[n];
+        }
+        return new Solution(Solution.Status.SOLVED, path, moves, explored(), System.nanoTime() - begin);
+    }
+
+    private static class Side {
+        private final LongIntHashMap index = new LongIntHashMap(1 << 14);
+        private long[] states = new long[1 << 12];
+        private int[] parents = new int[1 << 12];
+        private int[] moves = new int[1 << 12];
+        private int[] depths = new int[1 << 12];
+        private int size;
+        // nodes from layerStart to size are the frontier
+        private int layerStart;
+
+        private int add(long state, int parent, int move, int depth) {
+            if (!index.putIfAbsent(Board.canonical(state), size)) return -1;
+            if (size == states.length) {
+                int capacity = size << 1;
+                states = Arrays.copyOf(states, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                moves = Arrays.copyOf(moves, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            states[size] = state;
+            parents[size] = parent;
+            moves[size] = move;
+            depths[size] = depth;
+            return size++;
+        }
+
+        private boolean hasFrontier() {
+            return layerStart < size;
+        }
+
+        private int frontierSize() {
+            return size - layerStart;
+        }
+
+        private void clear() {
+            index.clear();
+            size = 0;
+            layerStart = 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package model.solver;
+
+/**
+ * Lets another thread stop a running search, e.g. a hint that is no longer needed.
+ */
+
+public class CancellationToken {
+    // for searches nobody needs to stop; it is shared, so cancelling it does nothing
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
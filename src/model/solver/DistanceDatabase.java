@@ -0,0 +1,162 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact step distance to the goal for every board reachable from one level, read from a file built
+ * offline by DistanceDatabaseBuilder and memory-mapped, so a lookup is one binary search and the data
+ * stays out of the heap.
+ * Boards are stored under Board.canonical, a board and its mirror share one entry.
+ * Layout (big-endian):
+ * <pre>
+ * int   MAGIC
+ * int   count
+ * long  canonical start board of the level
+ * int   bytes per distance (1 or 2)
+ * int   largest finite distance
+ * long  keys[count]       canonical boards, ascending
+ * u8/16 distances[count]  all ones when no goal is reachable
+ * </pre>
+ * A database is immutable and safe to share between threads.
+ */
+
+public final class DistanceDatabase {
+    public static final int MAGIC = 0x4B444231; // "KDB1"
+    public static final String EXTENSION = ".dist";
+    // returned by distance() for boards that are not in the database (e.g. after a hammer use)
+    public static final int UNKNOWN = -1;
+    // returned by distance() for boards from which the goal cannot be reached
+    public static final int UNSOLVABLE = -2;
+
+    static final int HEADER_BYTES = 24;
+
+    private static final Map<Path, DistanceDatabase> OPEN = new ConcurrentHashMap<>();
+
+    private final long start;
+    private final int count;
+    private final int distanceBytes;
+    private final int maxDistance;
+    private final LongBuffer keys;
+    private final ByteBuffer distances;
+
+    private DistanceDatabase(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a distance database");
+        count = buffer.getInt(4);
+        start = buffer.getLong(8);
+        distanceBytes = buffer.getInt(16);
+        maxDistance = buffer.getInt(20);
+        if (distanceBytes != 1 && distanceBytes != 2
+                || buffer.capacity() != HEADER_BYTES + (long) count * (Long.BYTES + distanceBytes)) {
+            throw new IllegalArgumentException("Corrupt distance database");
+        }
+
+        keys = buffer.slice(HEADER_BYTES, count * Long.BYTES).asLongBuffer();
+        distances = buffer.slice(HEADER_BYTES + count * Long.BYTES, count * distanceBytes);
+    }
+
+    public static DistanceDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new DistanceDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The database built for a level file (1.txt next to 1.dist), or null when it has not been built.
+     * Databases are mapped once and shared.
+     */
+    public static DistanceDatabase forLevel(String levelFile) {
+        if (levelFile == null) return null;
+        Path file = fileFor(Path.of(levelFile)).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(file)) return null;
+
+        DistanceDatabase database = OPEN.get(file);
+        if (database != null) return database;
+        try {
+            database = open(file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Distance database loading failed: " + file + ", Error: " + e.getMessage());
+            return null;
+        }
+        DistanceDatabase previous = OPEN.putIfAbsent(file, database);
+        return previous != null ? previous : database;
+    }
+
+    /**
+     * The database of a level file when forLevel has mapped it already, null otherwise. Touches no files,
+     * for callers on the EDT.
+     */
+    public static DistanceDatabase ifOpen(String levelFile) {
+        if (levelFile == null) return null;
+        return OPEN.get(fileFor(Path.of(levelFile)).toAbsolutePath().normalize());
+    }
+
+    public static Path fileFor(Path levelFile) {
+        String name = levelFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return levelFile.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + EXTENSION);
+    }
+
+    /**
+     * Steps the game needs from this board to the goal, UNSOLVABLE or UNKNOWN.
+     */
+    public int distance(long board) {
+        int i = find(Board.canonical(board));
+        if (i < 0) return UNKNOWN;
+        int d = distanceBytes == 1 ? distances.get(i) & 0xFF : distances.getShort(i * 2) & 0xFFFF;
+        return d == (1 << (distanceBytes * 8)) - 1 ? UNSOLVABLE : d;
+    }
+
+    public boolean contains(long board) {
+        return find(Board.canonical(board)) >= 0;
+    }
+
+    /**
+     * A one-cell move that brings the board one step closer to the goal, Move.NONE when the board is
+     * solved, unsolvable or unknown.
+     */
+    public int nextMove(long board) {
+        int d = distance(board);
+        if (d <= 0) return Move.NONE;
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int n = MoveGenerator.generate(board, MoveGenerator.Metric.STEP, moves);
+        for (int k = 0; k < n; k++) {
+            if (distance(Move.apply(board, moves[k])) == d - 1) return moves[k];
+        }
+        return Move.NONE;
+    }
+
+    private int find(long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = keys.get(mid);
+            if (value < key) low = mid + 1;
+            else if (value > key) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public long getStart() { return start; }
+
+    public int size() { return count; }
+
+    /**
+     * Largest finite distance in the database, -1 when no board can reach the goal.
+     */
+    public int getMaxDistance() { return maxDistance; }
+}
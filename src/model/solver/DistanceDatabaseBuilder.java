@@ -0,0 +1,72 @@
+package model.solver;
+
+import model.Board;
+import model.level.LevelParser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Offline step that writes a DistanceDatabase next to every level file.
+ * The boards and their distances come from StateSpace.
+ * Usage: DistanceDatabaseBuilder [levels directory], default resources/levels.
+ */
+
+public final class DistanceDatabaseBuilder {
+    private DistanceDatabaseBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path root = Path.of(args.length > 0 ? args[0] : "resources/levels");
+        try (DirectoryStream<Path> folders = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path folder : folders) {
+                try (DirectoryStream<Path> levels = Files.newDirectoryStream(folder, "*.txt")) {
+                    for (Path level : levels) {
+                        long begin = System.nanoTime();
+                        Path out = DistanceDatabase.fileFor(level);
+                        int states = build(LevelParser.read(level), out);
+                        System.out.printf("%s: %d states in %.1f ms%n", out, states, (System.nanoTime() - begin) / 1e6);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the database for a start board into file and returns the number of boards in it.
+     * The file is written next to its final place and moved over it, so readers never see half a file.
+     */
+    public static int build(long start, Path file) throws IOException {
+        long[] keys = StateSpace.reachable(start);
+        int[] distances = StateSpace.distances(keys);
+
+        int max = -1;
+        for (int d : distances) max = Math.max(max, d);
+        int distanceBytes = max < 0xFF ? 1 : 2;
+        if (max >= 0xFFFF) throw new IllegalStateException("Distance too large: " + max);
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(DistanceDatabase.MAGIC);
+            out.writeInt(keys.length);
+            out.writeLong(Board.canonical(start));
+            out.writeInt(distanceBytes);
+            out.writeInt(max);
+            for (long key : keys) out.writeLong(key);
+            for (int d : distances) {
+                int value = d < 0 ? (1 << (distanceBytes * 8)) - 1 : d;
+                if (distanceBytes == 1) out.writeByte(value);
+                else out.writeShort(value);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return keys.length;
+    }
+}
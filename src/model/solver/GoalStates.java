@@ -0,0 +1,78 @@
+package model.solver;
+
+import model.Board;
+
+import java.util.Arrays;
+
+/**
+ * All boards that hold the same blocks as a start board with the 2x2 block on the exit.
+ * Obstacles stay where they are, the other blocks are placed in every possible way.
+ * The backward half of BidirectionalBfsSolver starts from these boards.
+ */
+
+public final class GoalStates {
+    private static final int GOAL_INDEX = Board.index(Board.WIN_ROW, Board.WIN_COL);
+    private static final int[] BLOCK_CODES = {Board.VERTICAL, Board.HORIZONTAL, Board.SOLDIER};
+
+    private GoalStates() {
+    }
+
+    public static long[] of(long start) {
+        if (Board.count(start, Board.CAO_CAO) != 4) return new long[0];
+
+        long base = 0;
+        int used = 0;
+        for (int i = 0; i < Board.CELLS; i++) {
+            if (Board.code(start, i) == Board.OBSTACLE_CODE) {
+                base |= (long) Board.OBSTACLE_CODE << (i * Board.BITS_PER_CELL);
+                used |= 1 << i;
+            }
+        }
+        int goalCells = Board.cells(Board.CAO_CAO, GOAL_INDEX);
+        if ((used & goalCells) != 0) return new long[0];
+        base |= Board.pattern(Board.CAO_CAO, GOAL_INDEX);
+        used |= goalCells;
+
+        // blocks left to place per code, indexes as in BLOCK_CODES
+        int[] left = new int[BLOCK_CODES.length];
+        for (int k = 0; k < BLOCK_CODES.length; k++) {
+            int code = BLOCK_CODES[k];
+            left[k] = Board.count(start, code) / (Board.blockHeight(code) * Board.blockWidth(code));
+        }
+
+        Collector collector = new Collector();
+        collector.place(base, used, left, Board.count(start, Board.EMPTY));
+        return Arrays.copyOf(collector.boards, collector.size);
+    }
+
+    private static class Collector {
+        private final LongHashSet seen = new LongHashSet();
+        private long[] boards = new long[64];
+        private int size;
+
+        // fills the first free cell in every possible way, empty cells included
+        private void place(long board, int used, int[] left, int empty) {
+            if (used == (1 << Board.CELLS) - 1) {
+                if (seen.add(board)) {
+                    if (size == boards.length) boards = Arrays.copyOf(boards, size << 1);
+                    boards[size++] = board;
+                }
+                return;
+            }
+
+            int cell = Integer.numberOfTrailingZeros(~used);
+            if (empty > 0) place(board, used | 1 << cell, left, empty - 1);
+
+            for (int k = 0; k < BLOCK_CODES.length; k++) {
+                if (left[k] == 0) continue;
+                int code = BLOCK_CODES[k];
+                int cells = Board.cells(code, cell);
+                if (cells == 0 || (cells & used) != 0) continue;
+
+                left[k]--;
+                place(board | Board.pattern(code, cell), used | cells, left, empty);
+                left[k]++;
+            }
+        }
+    }
+}
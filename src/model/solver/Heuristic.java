@@ -0,0 +1,47 @@
+package model.solver;
+
+import model.Board;
+import model.MoveGenerator;
+
+/**
+ * Lower bound on the steps left: the distance of the 2x2 block to the exit plus one step for every
+ * other block that overlaps the exit area, since each of them has to move away at least once.
+ * When a slide may cover two cells the distance is halved, rounded up.
+ * It changes by at most one per move, so A* never has to reopen a board.
+ */
+
+final class Heuristic {
+    static final int UNSOLVABLE = Integer.MAX_VALUE;
+
+    private static final int GOAL_INDEX = Board.index(Board.WIN_ROW, Board.WIN_COL);
+    private static final int GOAL_CELLS = Board.cells(Board.CAO_CAO, GOAL_INDEX);
+
+    private Heuristic() {
+    }
+
+    /**
+     * anchors is scratch space of at least Board.CELLS ints.
+     */
+    static int estimate(long state, MoveGenerator.Metric metric, int[] anchors) {
+        int blocks = Board.anchors(state, anchors);
+        int distance = UNSOLVABLE;
+        int blockers = 0;
+        for (int k = 0; k < blocks; k++) {
+            int index = anchors[k];
+            int code = Board.code(state, index);
+            if (code == Board.CAO_CAO) {
+                distance = Math.abs(index / Board.WIDTH - Board.WIN_ROW) + Math.abs(index % Board.WIDTH - Board.WIN_COL);
+            } else if ((Board.cells(code, index) & GOAL_CELLS) != 0) {
+                blockers++;
+            }
+        }
+        if (distance == UNSOLVABLE) return UNSOLVABLE;
+        if (metric != MoveGenerator.Metric.STEP) distance = (distance + 1) / 2;
+
+        // an obstacle on the exit never moves away
+        for (int cells = GOAL_CELLS; cells != 0; cells &= cells - 1) {
+            if (Board.code(state, Integer.numberOfTrailingZeros(cells)) == Board.OBSTACLE_CODE) return UNSOLVABLE;
+        }
+        return distance + blockers;
+    }
+}
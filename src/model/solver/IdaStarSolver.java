@@ -0,0 +1,143 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Iterative deepening A* with the Heuristic bound. Memory stays fixed: besides the current path it
+ * only keeps a transposition table of a fixed size that remembers the lowest step count a board was
+ * reached with in the current iteration, so the same board, or its mirror, is not searched again from a
+ * worse position.
+ * It needs the least memory of all strategies but repeats work on every iteration, so it suits
+ * short solutions best.
+ */
+
+public class IdaStarSolver implements Solver {
+    private static final int FOUND = -1;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final MoveGenerator.Metric metric;
+    private final long[] tableKeys;
+    private final int[] tableCosts;
+    private final int[] tableRounds;
+    private final int tableMask;
+
+    private final int[] anchors = new int[Board.CELLS];
+    private long[] pathStates = new long[128];
+    private int[] pathMoves = new int[128];
+    private int[][] moveBuffers = new int[128][];
+
+    private SearchLimits limits;
+    private CancellationToken token;
+    private Solution.Status stop;
+    private long begin;
+    private long expanded;
+    private int foundDepth;
+    // table entries written in an earlier iteration, or an earlier solve, carry an older round
+    private int round;
+
+    public IdaStarSolver() {
+        this(MoveGenerator.Metric.STEP, 1 << 18);
+    }
+
+    /**
+     * tableSize is rounded up to a power of two; every entry costs 16 bytes.
+     */
+    public IdaStarSolver(MoveGenerator.Metric metric, int tableSize) {
+        this.metric = metric;
+        int capacity = Integer.highestOneBit(Math.max(16, tableSize) - 1) << 1;
+        tableKeys = new long[capacity];
+        tableCosts = new int[capacity];
+        tableRounds = new int[capacity];
+        tableMask = capacity - 1;
+    }
+
+    @Override
+    public String getName() {
+        return metric == MoveGenerator.Metric.STEP ? "IDA*" : "IDA* (" + metric + ")";
+    }
+
+    @Override
+    public Solution solve(long start, SearchLimits limits, CancellationToken token) {
+        this.limits = limits;
+        this.token = token;
+        this.begin = System.nanoTime();
+        this.stop = null;
+        this.expanded = 0;
+
+        int bound = Heuristic.estimate(start, metric, anchors);
+        pathStates[0] = start;
+        while (bound != INFINITY) {
+            round++;
+            int result = search(0, 0, bound);
+            if (result == FOUND) return build();
+            if (stop != null) return Solution.unsolved(stop, start, (int) expanded, System.nanoTime() - begin);
+            bound = result;
+        }
+        return Solution.unsolved(Solution.Status.UNSOLVABLE, start, (int) expanded, System.nanoTime() - begin);
+    }
+
+    /**
+     * Searches below pathStates[depth], returns FOUND or the smallest f above the bound.
+     * On FOUND the solution is pathStates[0..foundDepth].
+     */
+    private int search(int depth, int cost, int bound) {
+        long state = pathStates[depth];
+        int h = Heuristic.estimate(state, metric, anchors);
+        if (h == Heuristic.UNSOLVABLE) return INFINITY;
+        if (cost + h > bound) return cost + h;
+        if (Board.isWin(state)) {
+            foundDepth = depth;
+            return FOUND;
+        }
+
+        // reached before in this iteration with fewer steps, whatever lies below was searched then
+        long key = Board.canonical(state);
+        int slot = (int) LongHashSet.mix(key) & tableMask;
+        if (tableRounds[slot] == round && tableKeys[slot] == key && tableCosts[slot] <= cost) return INFINITY;
+        tableKeys[slot] = key;
+        tableCosts[slot] = cost;
+        tableRounds[slot] = round;
+
+        if (expanded++ % SearchLimits.CHECK_INTERVAL == 0) {
+            stop = limits.check(token, expanded, begin);
+            if (stop != null) return INFINITY;
+        }
+
+        ensureDepth(depth + 1);
+        int[] moves = moveBuffers[depth];
+        int count = MoveGenerator.generate(state, metric, moves);
+        int back = depth > 0 ? Move.inverse(pathMoves[depth - 1]) : Move.NONE;
+        int min = INFINITY;
+        for (int k = 0; k < count; k++) {
+            if (moves[k] == back) continue;
+            pathMoves[depth] = moves[k];
+            pathStates[depth + 1] = Move.apply(state, moves[k]);
+
+            int result = search(depth + 1, cost + 1, bound);
+            if (result == FOUND) return FOUND;
+            if (stop != null) return INFINITY;
+            if (result < min) min = result;
+        }
+        return min;
+    }
+
+    private void ensureDepth(int depth) {
+        if (depth >= pathStates.length) {
+            int capacity = pathStates.length << 1;
+            pathStates = Arrays.copyOf(pathStates, capacity);
+            pathMoves = Arrays.copyOf(pathMoves, capacity);
+            moveBuffers = Arrays.copyOf(moveBuffers, capacity);
+        }
+        if (moveBuffers[depth - 1] == null) moveBuffers[depth - 1] = new int[MoveGenerator.MAX_MOVES];
+    }
+
+    private Solution build() {
+        long[] path = Arrays.copyOf(pathStates, foundDepth + 1);
+        int[] moves = Arrays.copyOf(pathMoves, foundDepth);
+        return new Solution(Solution.Status.SOLVED, path, moves, (int) expanded, System.nanoTime() - begin);
+    }
+}
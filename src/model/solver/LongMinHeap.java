@@ -0,0 +1,48 @@
+package model.solver;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs, the open list of AStarSolver.
+ */
+
+final class LongMinHeap {
+    private long[] heap = new long[1 << 10];
+    private int size;
+
+    void push(long value) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size << 1);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
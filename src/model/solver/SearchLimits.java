@@ -0,0 +1,51 @@
+package model.solver;
+
+/**
+ * Node and time budget of one search. Zero or less means no limit.
+ */
+
+public final class SearchLimits {
+    public static final SearchLimits NONE = new SearchLimits(0, 0);
+
+    // how many expanded nodes pass between two clock reads
+    static final int CHECK_INTERVAL = 1024;
+
+    private final long maxNodes;
+    private final long maxNanos;
+
+    private SearchLimits(long maxNodes, long maxNanos) {
+        this.maxNodes = maxNodes;
+        this.maxNanos = maxNanos;
+    }
+
+    public static SearchLimits of(long maxNodes, long maxMillis) {
+        return new SearchLimits(maxNodes, maxMillis * 1_000_000L);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(maxNodes, 0);
+    }
+
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(0, maxMillis * 1_000_000L);
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Called by the solvers every CHECK_INTERVAL nodes, begin is the System.nanoTime() of the start.
+     * Returns why the search has to stop, or null to go on.
+     */
+    Solution.Status check(CancellationToken token, long nodes, long begin) {
+        if (token.isCancelled()) return Solution.Status.CANCELLED;
+        if (maxNodes > 0 && nodes >= maxNodes) return Solution.Status.BUDGET_EXHAUSTED;
+        if (maxNanos > 0 && System.nanoTime() - begin >= maxNanos) return Solution.Status.BUDGET_EXHAUSTED;
+        return null;
+    }
+}
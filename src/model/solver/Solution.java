@@ -0,0 +1,96 @@
+package model.solver;
+
+import model.Move;
+
+/**
+ * Result of one search: the boards from the start to the goal and the moves between them.
+ * An unsolved result has no moves and only the start board, its status tells whether the board has
+ * no solution or the search gave up.
+ * Tool uses (see Move.isTool) can be part of the moves; they are not counted as steps.
+ */
+
+public class Solution {
+    public enum Status { SOLVED, UNSOLVABLE, BUDGET_EXHAUSTED, CANCELLED }
+
+    private final Status status;
+    private final long[] states;
+    private final int[] moves;
+    private final int toolUses;
+    private final int exploredStates;
+    private final long elapsedNanos;
+
+    public Solution(Status status, long[] states, int[] moves, int exploredStates, long elapsedNanos) {
+        this.status = status;
+        this.states = states;
+        this.moves = moves;
+        int tools = 0;
+        for (int move : moves) if (Move.isTool(move)) tools++;
+        this.toolUses = tools;
+        this.exploredStates = exploredStates;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Unsolved result for a search that stopped at start without a path.
+     */
+    public static Solution unsolved(Status status, long start, int exploredStates, long elapsedNanos) {
+        return new Solution(status, new long[] {start}, new int[0], exploredStates, elapsedNanos);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * Number of steps, -1 when there is no solution. Tool uses are not steps.
+     */
+    public int getLength() {
+        return isSolved() ? moves.length - toolUses : -1;
+    }
+
+    /**
+     * Number of entries in the move list, steps and tool uses together.
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getToolUses() {
+        return toolUses;
+    }
+
+    public long getState(int i) {
+        return states[i];
+    }
+
+    public int getMove(int i) {
+        return moves[i];
+    }
+
+    public int getFirstMove() {
+        return moves.length > 0 ? moves[0] : Move.NONE;
+    }
+
+    public int getExploredStates() {
+        return exploredStates;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Solution{" +
+                "status=" + status +
+                ", moves=" + getLength() +
+                (toolUses > 0 ? ", tools=" + toolUses : "") +
+                ", explored=" + exploredStates +
+                ", time=" + elapsedNanos / 1000 + "us" +
+                '}';
+    }
+}
@@ -0,0 +1,24 @@
+package model.solver;
+
+import model.MapModel;
+
+/**
+ * A search strategy that finds a minimum-move solution for a packed board, moves counted by the
+ * MoveGenerator metric the strategy was built with (one-cell steps by default).
+ * Every strategy stops when the limits are used up or the token is cancelled and then returns
+ * an unsolved Solution with status BUDGET_EXHAUSTED or CANCELLED.
+ */
+
+public interface Solver {
+    Solution solve(long start, SearchLimits limits, CancellationToken token);
+
+    String getName();
+
+    default Solution solve(long start) {
+        return solve(start, SearchLimits.NONE, CancellationToken.NONE);
+    }
+
+    default Solution solve(MapModel model) {
+        return solve(model.getState());
+    }
+}
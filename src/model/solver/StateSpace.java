@@ -0,0 +1,77 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Whole-component searches over canonical boards with the STEP metric, for offline tools that need
+ * every reachable board rather than one path (DistanceDatabaseBuilder, LevelGenerator).
+ */
+
+public final class StateSpace {
+    private StateSpace() {
+    }
+
+    /**
+     * Every board reachable from start, as canonical keys in ascending order.
+     */
+    public static long[] reachable(long start) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        LongHashSet seen = new LongHashSet(1 << 16);
+        long[] queue = new long[1 << 12];
+        int tail = 0;
+
+        start = Board.canonical(start);
+        seen.add(start);
+        queue[tail++] = start;
+        for (int head = 0; head < tail; head++) {
+            long state = queue[head];
+            int count = MoveGenerator.generate(state, MoveGenerator.Metric.STEP, moves);
+            for (int k = 0; k < count; k++) {
+                long next = Board.canonical(Move.apply(state, moves[k]));
+                if (!seen.add(next)) continue;
+                if (tail == queue.length) queue = Arrays.copyOf(queue, tail << 1);
+                queue[tail++] = next;
+            }
+        }
+
+        long[] keys = Arrays.copyOf(queue, tail);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Steps from every key of a closed set (like the one reachable returns) to the nearest goal board in
+     * it, -1 when there is none. One breadth-first search runs backwards from all goal boards at once;
+     * moves are reversible, so that gives each board its exact distance.
+     */
+    public static int[] distances(long[] keys) {
+        int[] distances = new int[keys.length];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[keys.length];
+        int tail = 0;
+        for (int i = 0; i < keys.length; i++) {
+            // the exit is symmetric, so a canonical board is a goal exactly when the real one is
+            if (Board.isWin(keys[i])) {
+                distances[i] = 0;
+                queue[tail++] = i;
+            }
+        }
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            int count = MoveGenerator.generate(keys[node], MoveGenerator.Metric.STEP, moves);
+            for (int k = 0; k < count; k++) {
+                int next = Arrays.binarySearch(keys, Board.canonical(Move.apply(keys[node], moves[k])));
+                if (distances[next] >= 0) continue;
+                distances[next] = distances[node] + 1;
+                queue[tail++] = next;
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,143 @@
+package model.solver;
+
+import model.Board;
+import model.Move;
+import model.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Fewest-step search when the player may also use the tools of GameController.Tool: up to a number of
+ * hammer uses (each removes one soldier) and obstacle placements. Tool uses are free, like in the game.
+ * The tool counters need no room in the state: the soldiers left on the board tell how many hammers
+ * were used. Two rules keep the search as small as a plain BFS:
+ * - A hammer use is best made at the start. Removing the soldier earlier leaves every later move legal
+ *   and only skips that soldier's own moves, so every sequence has one that is no longer with all
+ *   hammer uses first. The search starts from every way of removing up to the allowed number of
+ *   soldiers, fewest removals first, so ties go to the solution with fewer tool uses.
+ * - An obstacle only blocks cells, so placing one never makes a solution shorter. Obstacle uses are
+ *   accepted for completeness but never appear in a solution.
+ * The hammer uses show up as the first moves of the solution (see Move.hammer) and are not counted in
+ * its length. A solver reuses its buffers between calls and must not be shared by threads.
+ */
+
+public class ToolAwareSolver implements Solver {
+    private final int hammers;
+    private final int obstacles;
+    private final MoveGenerator.Metric metric;
+    private final int[] successors = new int[MoveGenerator.MAX_MOVES];
+    private final LongHashSet visited = new LongHashSet(1 << 16);
+    private long[] queue = new long[1 << 12];
+    private int[] parents = new int[1 << 12];
+    private int[] moves = new int[1 << 12];
+    // hammer uses that lead from the start to a source board, by queue node
+    private int[][] removals = new int[16][];
+    private int sources;
+    private int tail;
+
+    public ToolAwareSolver(int hammers, int obstacles) {
+        this(hammers, obstacles, MoveGenerator.Metric.STEP);
+    }
+
+    public ToolAwareSolver(int hammers, int obstacles, MoveGenerator.Metric metric) {
+        if (hammers < 0 || obstacles < 0) throw new IllegalArgumentException("Negative tool budget");
+        this.hammers = hammers;
+        this.obstacles = obstacles;
+        this.metric = metric;
+    }
+
+    @Override
+    public String getName() {
+        String name = "BFS (" + hammers + (hammers == 1 ? " hammer" : " hammers")
+                + (obstacles > 0 ? ", " + obstacles + (obstacles == 1 ? " obstacle" : " obstacles") : "");
+        return metric == MoveGenerator.Metric.STEP ? name + ")" : name + ", " + metric + ")";
+    }
+
+    @Override
+    public Solution solve(long start, SearchLimits limits, CancellationToken token) {
+        long begin = System.nanoTime();
+        visited.clear();
+        tail = 0;
+        sources = 0;
+
+        int[] soldiers = new int[Board.CELLS];
+        int count = 0;
+        for (int i = 0; i < Board.CELLS; i++) if (Board.code(start, i) == Board.SOLDIER) soldiers[count++] = i;
+
+        for (int k = 0; k <= Math.min(hammers, count); k++) {
+            addSources(start, soldiers, count, 0, new int[k], 0);
+        }
+        for (int node = 0; node < tail; node++) {
+            if (Board.isWin(queue[node])) return build(node, start, begin);
+        }
+
+        for (int head = 0; head < tail; head++) {
+            if (head % SearchLimits.CHECK_INTERVAL == 0) {
+                Solution.Status stop = limits.check(token, head, begin);
+                if (stop != null) return Solution.unsolved(stop, start, visited.size(), System.nanoTime() - begin);
+            }
+
+            long state = queue[head];
+            int n = MoveGenerator.generate(state, metric, successors);
+            for (int k = 0; k < n; k++) {
+                long next = Move.apply(state, successors[k]);
+                if (!visited.add(Board.canonical(next))) continue;
+                push(next, head, successors[k]);
+                if (Board.isWin(next)) return build(tail - 1, start, begin);
+            }
+        }
+
+        return Solution.unsolved(Solution.Status.UNSOLVABLE, start, visited.size(), System.nanoTime() - begin);
+    }
+
+    // every board with chosen.length soldiers removed, in order of the soldiers' cells
+    private void addSources(long board, int[] soldiers, int count, int first, int[] chosen, int depth) {
+        if (depth == chosen.length) {
+            if (!visited.add(Board.canonical(board))) return;
+            if (sources == removals.length) removals = Arrays.copyOf(removals, sources << 1);
+            removals[sources++] = chosen.clone();
+            push(board, -1, Move.NONE);
+            return;
+        }
+        for (int i = first; i < count; i++) {
+            chosen[depth] = soldiers[i];
+            addSources(Move.apply(board, Move.hammer(soldiers[i])), soldiers, count, i + 1, chosen, depth + 1);
+        }
+    }
+
+    private void push(long state, int parent, int move) {
+        if (tail == queue.length) {
+            int capacity = queue.length << 1;
+            queue = Arrays.copyOf(queue, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+        }
+        queue[tail] = state;
+        parents[tail] = parent;
+        moves[tail] = move;
+        tail++;
+    }
+
+    private Solution build(int node, long start, long begin) {
+        int length = 0;
+        int source = node;
+        for (; parents[source] >= 0; source = parents[source]) length++;
+        // sources are the first nodes in the queue, in the same order as their removals
+        int[] tools = removals[source];
+
+        long[] path = new long[tools.length + length + 1];
+        int[] pathMoves = new int[tools.length + length];
+        path[0] = start;
+        for (int i = 0; i < tools.length; i++) {
+            pathMoves[i] = Move.hammer(tools[i]);
+            path[i + 1] = Move.apply(path[i], pathMoves[i]);
+        }
+        int n = node;
+        for (int i = tools.length + length; i > tools.length; i--) {
+            path[i] = queue[n];
+            pathMoves[i - 1] = moves[n];
+            n = parents[n];
+        }
+        return new Solution(Solution.Status.SOLVED, path, pathMoves, visited.size(), System.nanoTime() - begin);
+    }
+}
@@ -1,6 +1,7 @@
 package view.game;
 
 import controller.GameController;
+import controller.SaveSlots;
 import controller.UserDataController;
 import model.Direction;
 import model.MapModel;
@@ -10,6 +11,8 @@ import view.FrameUtil;
 import javax.sound.sampled.*;
 import javax.swing.*;
 import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 public class GameFrame extends JFrame {
     private Clip backgroundClip;
@@ -23,9 +26,12 @@ public class GameFrame extends JFrame {
     private JButton leftBtn;
     private JButton rightBtn;
     private JButton undoBtn;
+    private JButton redoBtn;
     private JButton soundBtn;
     private JButton hammerBtn;
     private JButton obstacleBtn;
+    private JButton hintBtn;
+    private JButton slotBtn;
     private JLabel timeLabel;
     private JLabel levelLabel;
     private JLabel stepLabel;
@@ -69,6 +75,7 @@ public class GameFrame extends JFrame {
                 @Override
                 public void windowClosing(java.awt.event.WindowEvent e) {
                     try {
+                        // the save is written in the background, exit waits for it in the save writer's shutdown hook
                         userData.saveGame(true);
                         System.exit(0);
                     } catch (Exception ex) {
@@ -79,6 +86,13 @@ public class GameFrame extends JFrame {
         }
     }
 
+    @Override
+    public void dispose() {
+        // closing the game by exiting ends the worker threads anyway, disposing the frame has to stop them
+        controller.shutdown();
+        super.dispose();
+    }
+
 
     // draw exit image
     private void addExitIndicator() {
@@ -207,6 +221,24 @@ public class GameFrame extends JFrame {
         });
         this.add(undoBtn);
 
+        slotBtn = FrameUtil.createButton(this, "Save As...", new Point(x + 600, y + 445), 100, 40);
+        slotBtn.setFocusable(false);
+        slotBtn.addActionListener(e -> {
+            String defaultName = level + " " + new SimpleDateFormat("MM-dd HH:mm").format(new Date());
+            String name = (String) JOptionPane.showInputDialog(this, "Slot name:", "Save Slot",
+                    JOptionPane.PLAIN_MESSAGE, null, null, defaultName);
+            if (name != null && !name.isBlank()) userData.saveSlot(name, false);
+            gamePanel.requestFocusInWindow();
+        });
+        if (isGuest) {
+            slotBtn.setEnabled(false);
+            slotBtn.setToolTipText("Guest cannot save games.");
+        }
+
+        redoBtn = FrameUtil.createButton(this, "Redo (Y)", new Point(x + 600, y + 395), 100, 40);
+        redoBtn.setFocusable(false);
+        redoBtn.addActionListener(e -> gamePanel.redoLastMove());
+
 
         upBtn = FrameUtil.createImageButton("/images/buttons/up.png", "Move Up", 50, 50);
         upBtn.setBounds(x+375, y+380, 50, 50);
@@ -241,6 +273,22 @@ public class GameFrame extends JFrame {
         obstacleBtn.setBounds(x, y + 450, BtnWidth, BtnHeight);
         obstacleBtn.addActionListener(e -> controller.selectTool(GameController.Tool.OBSTACLE));
         this.add(obstacleBtn);
+
+        hintBtn = FrameUtil.createButton(this, "Hint (H)", new Point(x + 185, y + 385), 110, 40);
+        hintBtn.setFocusable(false);
+        hintBtn.addActionListener(e -> gamePanel.showHint());
+
+        JLabel hintLabel = FrameUtil.createJLabel(this, "",
+                new Font("Arial", Font.PLAIN, 16),
+                new Point(x + 160, y + 430),
+                170, 60);
+        gamePanel.setHintLabel(hintLabel);
+
+        JLabel statusLabel = FrameUtil.createJLabel(this, "",
+                new Font("Arial", Font.PLAIN, 16),
+                new Point(x + 160, y + 490),
+                170, 60);
+        gamePanel.setStatusLabel(statusLabel);
     }
 
     public void startNewGame() {
@@ -253,4 +301,9 @@ public class GameFrame extends JFrame {
         userData.loadGame();
         gamePanel.requestFocusInWindow();
     }
+
+    public void loadSlot(String name, SaveSlots.Snapshot snapshot) {
+        userData.loadSlot(name, snapshot);
+        gamePanel.requestFocusInWindow();
+    }
 }
@@ -1,11 +1,15 @@
 package view.game;
 
 import controller.GameController;
+import controller.HintService;
 import controller.UserDataController;
+import model.Board;
 import model.Direction;
 import model.FireworksEffect;
 import model.MapModel;
+import model.Move;
 import model.SoundEffect;
+import model.solver.Solution;
 import view.FrameUtil;
 
 import javax.swing.*;
@@ -33,6 +37,8 @@ public class GamePanel extends ListenerPanel {
 
     private JLabel timeLabel;
     private JLabel stepLabel;
+    private JLabel hintLabel;
+    private JLabel statusLabel;
     private int steps;
 
     private final int GRID_SIZE = 80;
@@ -71,50 +77,100 @@ public class GamePanel extends ListenerPanel {
 
     public void initializeGame() {
         this.steps = 0;
+        buildBoxes(model.getState());
+    }
+
+    // a fresh box for block id anchored at (row, col), general picks the picture of a horizontal block
+    private BoxComponent createBox(int id, int row, int col, int general) {
+        BoxComponent box;
+        if (id == Board.CAO_CAO) {
+            box = new BoxComponent(this.image1, row, col, Color.GREEN);
+        } else if (id == Board.VERTICAL) {
+            box = new BoxComponent(this.image2, row, col, Color.PINK);
+        } else if (id == Board.HORIZONTAL) {
+            switch (general) {
+                case 0: box = new BoxComponent(this.image3_hz, row, col, Color.BLUE); break;
+                case 1: box = new BoxComponent(this.image3_mc, row, col, Color.BLUE); break;
+                case 2: box = new BoxComponent(this.image3_zf, row, col, Color.BLUE); break;
+                case 3: box = new BoxComponent(this.image3_zy, row, col, Color.BLUE); break;
+                default: box = new BoxComponent(this.image3_zy, row, col, Color.BLUE);
+            }
+        } else if (id == Board.SOLDIER) {
+            box = new BoxComponent(this.image4, row, col, Color.ORANGE);
+        } else {
+            return null;
+        }
+        box.setSize(GRID_SIZE * Board.blockWidth(id), GRID_SIZE * Board.blockHeight(id));
+        box.setLocation(col * GRID_SIZE + 2, row * GRID_SIZE + 2);
+        return box;
+    }
+
+    // replaces every box and obstacle with the ones of board
+    private void buildBoxes(long board) {
         this.removeAll();
         boxes.clear();
 
-        int[][] map = new int[model.getHeight()][model.getWidth()];
-        for (int i = 0; i < map.length; i++)
-            for (int j = 0; j < map[0].length; j++)
-                map[i][j] = model.getId(i, j);
-
+        int[] anchors = new int[Board.CELLS];
+        int count = Board.anchors(board, anchors);
         int general = 0;
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                BoxComponent box = null;
-                if (map[i][j] == 1) {
-                    box = new BoxComponent(this.image1, i, j, Color.GREEN);
-                    box.setSize(GRID_SIZE * 2, GRID_SIZE * 2);
-                    map[i][j] = 0; map[i + 1][j] = 0; map[i][j + 1] = 0; map[i + 1][j + 1] = 0;
-                } else if (map[i][j] == 2) {
-                    box = new BoxComponent(this.image2, i, j, Color.PINK);
-                    box.setSize(GRID_SIZE, GRID_SIZE * 2);
-                    map[i][j] = 0; map[i + 1][j] = 0;
-                } else if (map[i][j] == 3) {
-                    switch (general) {
-                        case 0: box = new BoxComponent(this.image3_hz, i, j, Color.BLUE); break;
-                        case 1: box = new BoxComponent(this.image3_mc, i, j, Color.BLUE); break;
-                        case 2: box = new BoxComponent(this.image3_zf, i, j, Color.BLUE); break;
-                        case 3: box = new BoxComponent(this.image3_zy, i, j, Color.BLUE); break;
-                        default: box = new BoxComponent(this.image3_zy, i, j, Color.BLUE);
-                    }
-                    box.setSize(GRID_SIZE * 2, GRID_SIZE);
-                    map[i][j] = 0; map[i][j + 1] = 0;
-                    general ++;
-                } else if (map[i][j] == 4) {
-                    box = new BoxComponent(this.image4, i, j, Color.ORANGE);
-                    box.setSize(GRID_SIZE, GRID_SIZE);
-                    map[i][j] = 0;
-                }
+        for (int k = 0; k < count; k++) {
+            int id = Board.code(board, anchors[k]);
+            BoxComponent box = createBox(id, anchors[k] / Board.WIDTH, anchors[k] % Board.WIDTH, general);
+            if (id == Board.HORIZONTAL) general++;
+            boxes.add(box);
+            this.add(box);
+        }
+        addObstacles(board);
+        this.revalidate();
+        this.repaint();
+    }
 
-                if (box != null) {
-                    box.setLocation(j * GRID_SIZE + 2, i * GRID_SIZE + 2);
-                    boxes.add(box);
-                    this.add(box);
-                }
+    private void addObstacles(long board) {
+        for (int i = 0; i < Board.CELLS; i++) {
+            if (Board.code(board, i) == Board.OBSTACLE_CODE) addObstacleAt(i / Board.WIDTH, i % Board.WIDTH);
+        }
+    }
+
+    /**
+     * Brings the boxes and obstacles in line with the model's board: boxes whose block is still in place
+     * stay as they are, the others are removed and missing ones created. The model never calls the view,
+     * undo, redo, replays and loading all change the model first and then sync.
+     */
+    public void syncFromModel() {
+        long board = model.getState();
+        int general = 0;
+        for (BoxComponent box : new ArrayList<>(boxes)) {
+            int index = Board.index(box.getRow(), box.getCol());
+            int id = Board.code(board, index);
+            boolean inPlace = Board.isAnchor(board, index)
+                    && box.getWidth() == GRID_SIZE * Board.blockWidth(id)
+                    && box.getHeight() == GRID_SIZE * Board.blockHeight(id);
+            if (!inPlace) {
+                boxes.remove(box);
+                this.remove(box);
+            } else if (id == Board.HORIZONTAL) {
+                general++;
             }
         }
+        for (Component comp : getComponents()) {
+            if (comp instanceof ObstacleComponent) this.remove(comp);
+        }
+
+        int[] anchors = new int[Board.CELLS];
+        int count = Board.anchors(board, anchors);
+        for (int k = 0; k < count; k++) {
+            int row = anchors[k] / Board.WIDTH;
+            int col = anchors[k] % Board.WIDTH;
+            if (getBoxAt(row, col) != null) continue;
+            int id = Board.code(board, anchors[k]);
+            BoxComponent box = createBox(id, row, col, general);
+            if (id == Board.HORIZONTAL) general++;
+            boxes.add(box);
+            this.add(box);
+        }
+        addObstacles(board);
+        if (selectedBox != null && !boxes.contains(selectedBox)) selectedBox = null;
+        this.revalidate();
         this.repaint();
     }
 
@@ -147,7 +203,55 @@ public class GamePanel extends ListenerPanel {
         }
     }
 
+    public void showHint() {
+        if (controller == null) return;
+        setHintText("Thinking...");
+        controller.requestHint(hint -> {
+            // the player moved on while the hint was computed
+            if (hint.getBoard() != model.getState()) return;
+
+            if (hint.getMove() != Move.NONE) {
+                BoxComponent box = getBoxAt(Move.fromRow(hint.getMove()), Move.fromCol(hint.getMove()));
+                if (box != null) {
+                    if (selectedBox != null) selectedBox.setSelected(false);
+                    selectedBox = box;
+                    selectedBox.setSelected(true);
+                }
+                setHintText("<html>Hint: " + Move.direction(hint.getMove()) + "<br>"
+                        + hint.getDistance() + " steps left</html>");
+            } else if (hint.getStatus() == Solution.Status.SOLVED) {
+                setHintText("Solved!");
+            } else if (hint.getStatus() == Solution.Status.UNSOLVABLE) {
+                setHintText("No solution from here");
+            } else {
+                setHintText("No hint found");
+            }
+            this.requestFocusInWindow();
+        });
+    }
+
+    /**
+     * Shows whether the board can still be solved, called after tool uses and restarts.
+     */
+    public void showSolvability(HintService.Hint hint) {
+        if (statusLabel == null || hint.getBoard() != model.getState()) return;
+
+        if (hint.getStatus() == Solution.Status.SOLVED) {
+            statusLabel.setText("<html>Still solvable<br>" + (hint.isExact() ? "" : "at most ")
+                    + hint.getDistance() + " steps left</html>");
+        } else if (hint.getStatus() == Solution.Status.UNSOLVABLE) {
+            statusLabel.setText("<html>Now unsolvable</html>");
+        } else {
+            statusLabel.setText("<html>Solvability unknown</html>");
+        }
+    }
+
+    private void setHintText(String text) {
+        if (hintLabel != null) hintLabel.setText(text);
+    }
+
     public void afterMove() {
+        setHintText("");
         this.steps ++;
         updateStepLabel();
         for (ActionListener listener : stepListeners) {
@@ -155,55 +259,47 @@ public class GamePanel extends ListenerPanel {
         }
     }
 
-    private void updateBoxPositions() {
-        for (BoxComponent box : boxes) {
-            box.setLocation(box.getCol() * GRID_SIZE + 2, box.getRow() * GRID_SIZE + 2);
-        }
-        this.repaint();
-    }
+    /**
+     * Slides box from (fromRow, fromCol) to (toRow, toCol) in durationMillis, then selects it there.
+     * Used for the player's moves and for replays.
+     */
+    public void animateBox(BoxComponent box, int fromRow, int fromCol, int toRow, int toCol, int durationMillis) {
+        final int startX = fromCol * GRID_SIZE + 2;
+        final int startY = fromRow * GRID_SIZE + 2;
+        final int targetX = toCol * GRID_SIZE + 2;
+        final int targetY = toRow * GRID_SIZE + 2;
+        final long startTime = System.currentTimeMillis();
+
+        Timer timer = new Timer(16, e -> {
+            long elapsed = System.currentTimeMillis() - startTime;
+            float progress = durationMillis <= 0 ? 1.0f : Math.min(1.0f, (float) elapsed / durationMillis);
+            float easedProgress = easeOutQuad(progress);
+
+            int currentX = (int) (startX + (targetX - startX) * easedProgress);
+            int currentY = (int) (startY + (targetY - startY) * easedProgress);
+
+            box.setLocation(currentX, currentY);
+            box.repaint();
 
-    public void rebuildGameView(int[][] mapData) {
-        this.removeAll();
-        boxes.clear();
+            if (progress >= 1.0f) {
+                ((Timer) e.getSource()).stop();
+                box.setRow(toRow);
+                box.setCol(toCol);
+                highlightSelectedBox(toRow, toCol);
+                repaint();
+            }
+        });
 
-        int general = 0;
-        for (int i = 0; i < mapData.length; i++) {
-            for (int j = 0; j < mapData[0].length; j++) {
-                BoxComponent box = null;
-                if (mapData[i][j] == 1) {
-                    box = new BoxComponent(this.image1, i, j, Color.GREEN);
-                    box.setSize(GRID_SIZE * 2, GRID_SIZE * 2);
-                    mapData[i][j] = 0; mapData[i + 1][j] = 0; mapData[i][j + 1] = 0; mapData[i + 1][j + 1] = 0;
-                } else if (mapData[i][j] == 2) {
-                    box = new BoxComponent(this.image2, i, j, Color.PINK);
-                    box.setSize(GRID_SIZE, GRID_SIZE * 2);
-                    mapData[i][j] = 0; mapData[i + 1][j] = 0;
-                } else if (mapData[i][j] == 3) {
-                    switch (general) {
-                        case 0: box = new BoxComponent(this.image3_hz, i, j, Color.BLUE); break;
-                        case 1: box = new BoxComponent(this.image3_mc, i, j, Color.BLUE); break;
-                        case 2: box = new BoxComponent(this.image3_zf, i, j, Color.BLUE); break;
-                        case 3: box = new BoxComponent(this.image3_zy, i, j, Color.BLUE); break;
-                        default: box = new BoxComponent(this.image3_zy, i, j, Color.BLUE);
-                    }
-                    box.setSize(GRID_SIZE * 2, GRID_SIZE);
-                    mapData[i][j] = 0; mapData[i][j + 1] = 0;
-                    general ++;
-                } else if (mapData[i][j] == 4) {
-                    box = new BoxComponent(this.image4, i, j, Color.ORANGE);
-                    box.setSize(GRID_SIZE, GRID_SIZE);
-                    mapData[i][j] = 0;
-                }
+        timer.setInitialDelay(0);
+        timer.start();
+    }
 
-                if (box != null) {
-                    box.setLocation(j * GRID_SIZE + 2, i * GRID_SIZE + 2);
-                    boxes.add(box);
-                    this.add(box);
-                }
-            }
-        }
-        this.revalidate();
-        this.repaint();
+    private float easeOutQuad(float t) {
+        return t * (2 - t);
+    }
+
+    public void rebuildGameView(int[][] mapData) {
+        buildBoxes(Board.fromMatrix(mapData));
     }
 
     public boolean undoLastMove() {
@@ -214,9 +310,8 @@ public class GamePanel extends ListenerPanel {
 
         boolean success = controller.undoMove();
         if (success) {
-            steps--;
-            updateStepLabel();
-            updateBoxPositions();
+            setHintText("");
+            setSteps(controller.getEngine().getSteps());
             clearSelection();
             selectedBox = null;
         }
@@ -224,6 +319,22 @@ public class GamePanel extends ListenerPanel {
         return success;
     }
 
+    public boolean redoLastMove() {
+        if (controller == null) {
+            showInfoMessage("Controller not initialized.");
+            return false;
+        }
+
+        boolean success = controller.redoMove();
+        if (success) {
+            setHintText("");
+            setSteps(controller.getEngine().getSteps());
+            controller.checkWinCondition();
+        }
+
+        return success;
+    }
+
     public void setTimeLabel(JLabel timeLabel) {
         this.timeLabel = timeLabel;
     }
@@ -232,6 +343,14 @@ public class GamePanel extends ListenerPanel {
         this.timeLabel.setText(label);
     }
 
+    public void setStatusLabel(JLabel statusLabel) {
+        this.statusLabel = statusLabel;
+    }
+
+    public void setHintLabel(JLabel hintLabel) {
+        this.hintLabel = hintLabel;
+    }
+
     public void setStepLabel(JLabel stepLabel) {
         this.stepLabel = stepLabel;
         updateStepLabel();
@@ -299,9 +418,11 @@ public class GamePanel extends ListenerPanel {
     }
 
     public void removeBoxAt(int row, int col) {
-        Component comp = getBoxAt(row, col);
-        if (comp != null) {
-            remove(comp);
+        BoxComponent box = getBoxAt(row, col);
+        if (box != null) {
+            boxes.remove(box);
+            if (box == selectedBox) selectedBox = null;
+            remove(box);
             repaint();
         }
     }
@@ -402,11 +523,23 @@ public class GamePanel extends ListenerPanel {
     @Override
     public void doMoveDown() { moveSelectedBox(Direction.DOWN); }
 
+    @Override
+    public void doHint() { showHint(); }
+
+    @Override
+    public void doUndo() { undoLastMove(); }
+
+    @Override
+    public void doRedo() { redoLastMove(); }
+
     @Override
     public void doLeftClick(Point point) {
         int col = point.x / GRID_SIZE;
         int row = point.y / GRID_SIZE;
 
+        // replays show a GamePanel without a controller
+        if (controller == null) return;
+
         if (controller.getCurrentTool() != GameController.Tool.NONE) {
             if (controller.useTool(row, col)) {
                 controller.setCurrentTool(GameController.Tool.NONE);
@@ -24,6 +24,9 @@ public abstract class ListenerPanel extends JPanel {
                     case KeyEvent.VK_LEFT -> doMoveLeft();
                     case KeyEvent.VK_UP -> doMoveUp();
                     case KeyEvent.VK_DOWN -> doMoveDown();
+                    case KeyEvent.VK_H -> doHint();
+                    case KeyEvent.VK_Z -> doUndo();
+                    case KeyEvent.VK_Y -> doRedo();
                 }
             } catch (Exception ex) {
                 System.err.println("Error: " + ex.getMessage());
@@ -50,6 +53,9 @@ public abstract class ListenerPanel extends JPanel {
     public abstract void doMoveLeft();
     public abstract void doMoveUp();
     public abstract void doMoveDown();
+    public abstract void doHint();
+    public abstract void doUndo();
+    public abstract void doRedo();
 
     public abstract void doLeftClick(Point point);
     public abstract void doRightClick(Point point);
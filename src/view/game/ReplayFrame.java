@@ -0,0 +1,100 @@
+package view.game;
+
+import controller.ReplayPlayer;
+import model.MapModel;
+import model.replay.Replay;
+import view.FrameUtil;
+
+import javax.swing.*;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Window that plays back one Replay: play / pause, single steps, a speed choice and a slider to seek.
+ */
+
+public class ReplayFrame extends JFrame {
+    private static final String[] SPEEDS = {"0.5x", "1x", "2x", "4x", "8x", "16x"};
+
+    private final ReplayPlayer player;
+    private final JButton playBtn;
+    private final JSlider slider;
+    private final JLabel timeLabel;
+    private boolean seeking;
+
+    public ReplayFrame(Replay replay) {
+        this.setTitle("Klotski Puzzle - Replay");
+        this.setSize(600, 560);
+        this.setLayout(null);
+        this.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        MapModel model = new MapModel(replay.getStart(), replay.getLevel());
+        GamePanel gamePanel = new GamePanel(model);
+        gamePanel.setLocation(300 - gamePanel.getWidth() / 2, 60);
+        this.add(gamePanel);
+
+        String started = new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(replay.getStartedAt()));
+        FrameUtil.createJLabel(this, replay.getUser() + "  -  " + replay.getLevel() + "  -  " + started
+                        + "  -  " + replay.getResult(),
+                new Font("Arial", Font.PLAIN, 16), new Point(20, 10), 560, 40);
+
+        JLabel stepLabel = FrameUtil.createJLabel(this, "Steps: 0",
+                new Font("Arial", Font.PLAIN, 18), new Point(48, 390), 150, 30);
+        gamePanel.setStepLabel(stepLabel);
+        timeLabel = FrameUtil.createJLabel(this, "Time: 00:00",
+                new Font("Arial", Font.PLAIN, 18), new Point(200, 390), 150, 30);
+
+        slider = new JSlider(0, replay.getEventCount(), 0);
+        slider.setBounds(40, 425, 520, 30);
+        this.add(slider);
+
+        player = new ReplayPlayer(replay, gamePanel, model);
+
+        playBtn = FrameUtil.createButton(this, "Play", new Point(40, 465), 90, 35);
+        JButton stepBtn = FrameUtil.createButton(this, "Step", new Point(140, 465), 90, 35);
+        JComboBox<String> speedBox = new JComboBox<>(SPEEDS);
+        speedBox.setSelectedItem("1x");
+        speedBox.setBounds(240, 465, 80, 35);
+        this.add(speedBox);
+
+        playBtn.addActionListener(e -> {
+            if (player.isPlaying()) player.pause();
+            else player.play();
+            updateControls();
+        });
+        stepBtn.addActionListener(e -> {
+            player.pause();
+            player.step();
+        });
+        speedBox.addActionListener(e -> {
+            String speed = (String) speedBox.getSelectedItem();
+            player.setSpeed(Double.parseDouble(speed.substring(0, speed.length() - 1)));
+        });
+        slider.addChangeListener(e -> {
+            if (!seeking && slider.getValue() != player.getPosition()) player.seek(slider.getValue());
+        });
+        player.setPositionListener(this::updateControls);
+        updateControls();
+
+        this.setLocationRelativeTo(null);
+        this.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                player.pause();
+            }
+        });
+    }
+
+    private void updateControls() {
+        // this is called while the player seeks, the slider must not seek again
+        seeking = true;
+        slider.setValue(player.getPosition());
+        seeking = false;
+
+        long seconds = player.getReplay().getGameMillis(player.getPosition()) / 1000;
+        timeLabel.setText(String.format("Time: %02d:%02d", seconds / 60, seconds % 60));
+        boolean atEnd = player.getPosition() >= player.getReplay().getEventCount();
+        playBtn.setText(player.isPlaying() && !atEnd ? "Pause" : "Play");
+    }
+}
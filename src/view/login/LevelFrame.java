@@ -1,6 +1,10 @@
 package view.login;
 
 import model.MapModel;
+import model.level.Difficulty;
+import model.level.Level;
+import model.level.LevelCatalog;
+import model.level.LevelPack;
 import controller.User;
 import view.FrameUtil;
 import view.game.BackgroundPanel;
@@ -8,10 +12,6 @@ import view.game.GameFrame;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 public class LevelFrame extends JFrame {
     private final boolean isGuest;
@@ -83,15 +83,19 @@ public class LevelFrame extends JFrame {
     }
 
     private void startGameWithLevel(int difficulty) {
-        int[][] mapData = generateMap(difficulty);
-
-        String level = "";
-        if (difficulty == 1) level = "Easy";
-        else if (difficulty == 2) level = "Medium";
-        else if (difficulty == 3) level = "Hard";
-
-        MapModel model = new MapModel(mapData, level);
+        Difficulty bucket = switch (difficulty) {
+            case 1 -> Difficulty.EASY;
+            case 3 -> Difficulty.HARD;
+            default -> Difficulty.MEDIUM;
+        };
+        String level = bucket.getLabel();
+
+        // a level pack is read one record at a time; without one the catalog has every level in memory
+        LevelPack pack = LevelPack.getDefault();
+        Level picked = pack != null ? pack.random(bucket) : LevelCatalog.getDefault().random(bucket);
+        MapModel model = picked != null ? new MapModel(picked.getBoard(), level) : new MapModel(getDefaultMap(), level);
         model.setLevel(level);
+        if (picked != null) model.setLevelFile(picked.getFile());
 
         GameFrame gameFrame = new GameFrame(900, 600, model, isGuest, user);
         gameFrame.startNewGame();
@@ -100,80 +104,6 @@ public class LevelFrame extends JFrame {
         this.dispose();
     }
 
-    private int[][] generateMap(int difficulty) {
-        String difficultyFolder;
-        switch (difficulty) {
-            case 1:
-                difficultyFolder = "easy";
-                break;
-            case 2:
-                difficultyFolder = "medium";
-                break;
-            case 3:
-                difficultyFolder = "hard";
-                break;
-            default:
-                difficultyFolder = "medium";
-        }
-
-        String basePath = "resources/levels/" + difficultyFolder + "/";
-
-        int mapCount = getMapCount(basePath);
-        if (mapCount == 0) return getDefaultMap();
-
-        Random random = new Random();
-        int selectedMap = random.nextInt(mapCount) + 1;
-        String filePath = basePath + selectedMap + ".txt";
-
-        return loadMapFromFile(filePath);
-    }
-
-    private int getMapCount(String folderPath) {
-        File folder = new File(folderPath);
-        if (folder.exists() && folder.isDirectory()) {
-            File[] files = folder.listFiles((dir, name) -> name.endsWith(".txt"));
-            return files != null ? files.length : 0;
-        }
-        return 0;
-    }
-
-    private int[][] loadMapFromFile(String filePath) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            List<String> lines = new ArrayList<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lines.add(line.trim());
-            }
-
-            if (lines.size() != 4) {
-                return getDefaultMap();
-            }
-
-            int[][] map = new int[4][5];
-            for (int i = 0; i < 4; i++)
-            {
-                String[] values = lines.get(i).split("\\s+");
-                if (values.length != 5) {
-                    return getDefaultMap();
-                }
-
-                for (int j = 0; j < 5; j++)
-                {
-                    try {
-                        map[i][j] = Integer.parseInt(values[j]);
-                    } catch (NumberFormatException e) {
-                        map[i][j] = 0;
-                    }
-                }
-            }
-
-            return map;
-        } catch (Exception e) {
-            System.err.println("Map loading failed: " + filePath + ", Error: " + e.getMessage());
-            return getDefaultMap();
-        }
-    }
-
     private int[][] getDefaultMap() {
         return new int[][] {
                 {4, 3, 3, 1, 1},
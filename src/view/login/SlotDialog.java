@@ -0,0 +1,111 @@
+package view.login;
+
+import controller.SaveSlots;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Lists a user's save slots from the slot index (name, level, steps, time left and when it was saved)
+ * and lets the user pick one to load or delete. Only the slot that is loaded is read.
+ */
+
+public class SlotDialog extends JDialog {
+    private static final String[] COLUMNS = {"Name", "Level", "Steps", "Time Left", "Saved"};
+
+    private final SaveSlots slots;
+    private final DefaultTableModel tableModel;
+    private final JTable table;
+    private List<SaveSlots.Slot> shown;
+    private SaveSlots.Slot chosen;
+
+    public SlotDialog(Frame owner, SaveSlots slots) {
+        super(owner, "Saved Slots", true);
+        this.slots = slots;
+        setSize(560, 320);
+        setLocationRelativeTo(owner);
+        setLayout(new BorderLayout());
+
+        tableModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(180);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton loadBtn = new JButton("Load");
+        loadBtn.addActionListener(e -> {
+            SaveSlots.Slot slot = selected();
+            if (slot == null) return;
+            chosen = slot;
+            dispose();
+        });
+        JButton deleteBtn = new JButton("Delete");
+        deleteBtn.addActionListener(e -> {
+            SaveSlots.Slot slot = selected();
+            if (slot == null) return;
+            int answer = JOptionPane.showConfirmDialog(this, "Delete slot " + slot.getName() + "?",
+                    "Delete Slot", JOptionPane.YES_NO_OPTION);
+            if (answer != JOptionPane.YES_OPTION) return;
+            slots.delete(slot, error -> {
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this, "Slot cannot delete: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+            refresh();
+        });
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(loadBtn);
+        buttons.add(deleteBtn);
+        buttons.add(cancelBtn);
+        add(buttons, BorderLayout.SOUTH);
+        getRootPane().setDefaultButton(loadBtn);
+
+        refresh();
+    }
+
+    /**
+     * Shows the dialog and returns the slot to load, null when none was chosen.
+     */
+    public SaveSlots.Slot choose() {
+        if (shown.isEmpty()) {
+            JOptionPane.showMessageDialog(getOwner(), "No saved slots yet.", "Saved Slots", JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        setVisible(true);
+        return chosen;
+    }
+
+    private void refresh() {
+        shown = slots.list();
+        tableModel.setRowCount(0);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        for (SaveSlots.Slot slot : shown) {
+            long timeLeft = slot.getTimeLeft();
+            tableModel.addRow(new Object[]{
+                    slot.getName(),
+                    slot.getLevel(),
+                    slot.getSteps(),
+                    String.format("%02d:%02d", timeLeft / 60, timeLeft % 60),
+                    format.format(new Date(slot.getSavedAt()))
+            });
+        }
+        if (!shown.isEmpty()) table.setRowSelectionInterval(0, 0);
+    }
+
+    private SaveSlots.Slot selected() {
+        int row = table.getSelectedRow();
+        return row < 0 ? null : shown.get(row);
+    }
+}
@@ -1,12 +1,17 @@
 package view.login;
 
 import model.MapModel;
+import controller.SaveSlots;
 import controller.User;
+import model.replay.Replay;
+import model.replay.ReplayRecorder;
 import view.FrameUtil;
 import view.game.BackgroundPanel;
 import view.game.GameFrame;
+import view.game.ReplayFrame;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
 import java.nio.file.Files;
@@ -105,6 +110,62 @@ public class StartMenuFrame extends JFrame {
         gbc.gridy = 2;
         add(loadBtn, gbc);
 
+        // Replay Button
+        JButton replayBtn = new JButton("Watch Replay");
+        replayBtn.setFont(new Font("Arial", Font.BOLD, 16));
+        replayBtn.setPreferredSize(new Dimension(150, 40));
+        replayBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(ReplayRecorder.DIRECTORY.resolve(user.getUsername()).toFile());
+            chooser.setFileFilter(new FileNameExtensionFilter("Klotski replays", Replay.EXTENSION.substring(1)));
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+            try {
+                new ReplayFrame(Replay.read(chooser.getSelectedFile().toPath())).setVisible(true);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Replay cannot load: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        if (isGuest) {
+            replayBtn.setEnabled(false);
+            replayBtn.setToolTipText("Guest games are not recorded.");
+        }
+
+        // Slots Button
+        JButton slotsBtn = new JButton("Saved Slots");
+        slotsBtn.setFont(new Font("Arial", Font.BOLD, 16));
+        slotsBtn.setPreferredSize(new Dimension(150, 40));
+        slotsBtn.addActionListener(e -> {
+            SaveSlots slots = new SaveSlots(user.getUsername());
+            SaveSlots.Slot slot = new SlotDialog(this, slots).choose();
+            if (slot == null) return;
+
+            try {
+                SaveSlots.Snapshot snapshot = slots.load(slot);
+                MapModel mapModel = new MapModel(snapshot.getInitialBoard(), snapshot.getLevel());
+                GameFrame gameFrame = new GameFrame(900, 600, mapModel, isGuest, user);
+                gameFrame.loadSlot(slot.getName(), snapshot);
+                gameFrame.setVisible(true);
+                gameFrame.requestFocus();
+                this.dispose();
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Slot cannot load: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        if (isGuest) {
+            slotsBtn.setEnabled(false);
+            slotsBtn.setToolTipText("Guest cannot load saved games.");
+        }
+
+        // the two small buttons share a row, the frame has no room for another one
+        JPanel smallButtons = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        smallButtons.setOpaque(false);
+        smallButtons.add(replayBtn);
+        smallButtons.add(slotsBtn);
+        gbc.gridy = 3;
+        add(smallButtons, gbc);
+
         // Exit Button
         JButton exitBtn = FrameUtil.createImageButton("/images/buttons/exitNew.png", "Exit", 150, 75);
         exitBtn.addActionListener(e -> {
@@ -112,7 +173,7 @@ public class StartMenuFrame extends JFrame {
             loginFrame.setVisible(true);
             this.dispose();
         });
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         add(exitBtn, gbc);
     }
 }